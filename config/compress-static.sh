@@ -0,0 +1,14 @@
+#!/bin/bash
+# Precompressed variants of text static resources, served instead of original by Accept-Encoding
+# (Spring EncodedResourceResolver in app, gzip_static/brotli_static in nginx).
+# Run after deploy/update of resources: ./config/compress-static.sh [static dir]
+# No css: its links are rewritten to versioned urls by app (CssLinkResourceTransformer), gzip on the fly
+set -e
+dir=${1:-./resources/static}
+find "$dir" -type f \( -name '*.js' -o -name '*.svg' -o -name '*.map' -o -name '*.ttf' -o -name '*.txt' \) |
+while read -r file; do
+  gzip -9 -k -f "$file"
+  if command -v brotli > /dev/null; then
+    brotli -q 11 -k -f "$file"
+  fi
+done
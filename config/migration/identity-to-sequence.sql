@@ -0,0 +1,7 @@
+-- Migration of existing H2 database from IDENTITY ids to global_seq (see BaseEntity)
+-- user_role references users.id and needs no changes
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY;
+
+-- increment must match allocationSize of global_seq
+CREATE SEQUENCE IF NOT EXISTS global_seq START WITH 1000 INCREMENT BY 20;
+ALTER SEQUENCE global_seq RESTART WITH (SELECT GREATEST(MAX(id) + 1, 1000) FROM users);
@@ -0,0 +1,57 @@
+package ru.javaops.startup;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.javaops.startup.user.model.Role;
+import ru.javaops.startup.user.model.User;
+import ru.javaops.startup.user.repository.UserRepository;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Application context for benchmarks: test profile (in-memory H2, no cache) without SQL and debug logging.
+ */
+public class BenchmarkContext {
+    private static final String[] DEFAULT_ARGS = {
+            "--spring.profiles.active=test",
+            "--server.port=0",
+            "--spring.jpa.show-sql=false",
+            "--logging.level.root=WARN",
+            "--logging.level.ru.javaops=WARN"
+    };
+
+    //  args override defaults with the same name (repeated option would be joined by comma)
+    public static ConfigurableApplicationContext start(String... args) {
+        Set<String> names = Stream.of(args).map(BenchmarkContext::name).collect(Collectors.toSet());
+        return new SpringApplicationBuilder(StartupApplication.class)
+                .run(Stream.concat(Stream.of(DEFAULT_ARGS).filter(arg -> !names.contains(name(arg))), Stream.of(args))
+                        .toArray(String[]::new));
+    }
+
+    private static String name(String arg) {
+        int idx = arg.indexOf('=');
+        return idx < 0 ? arg : arg.substring(0, idx);
+    }
+
+    public static User user(int i) {
+        return new User(null, "Name" + i, email(i), "LastName" + i, Role.USER);
+    }
+
+    public static String email(int i) {
+        return "user" + i + "@bench.com";
+    }
+
+    public static void populate(ConfigurableApplicationContext ctx, int count) {
+        UserRepository repository = ctx.getBean(UserRepository.class);
+        TransactionTemplate transactionTemplate = ctx.getBean(TransactionTemplate.class);
+        for (int i = 0; i < count; i += 1000) {
+            int from = i, to = Math.min(count, i + 1000);
+            transactionTemplate.executeWithoutResult(status ->
+                    repository.saveAll(IntStream.range(from, to).mapToObj(BenchmarkContext::user).toList()));
+        }
+    }
+}
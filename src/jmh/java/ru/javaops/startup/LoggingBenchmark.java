@@ -0,0 +1,60 @@
+package ru.javaops.startup;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static ru.javaops.startup.user.web.AdminUserController.REST_URL;
+
+/**
+ * Request throughput with prod logging (async appender, json to logs/startup.log):
+ * application logs disabled (WARN), per request logs (DEBUG) and with SQL (show-sql)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class LoggingBenchmark {
+    private static final int USERS = 10_000;
+
+    @Param({"WARN", "DEBUG"})
+    private String level;
+
+    @Param({"false", "true"})
+    private boolean showSql;
+
+    private ConfigurableApplicationContext ctx;
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // prod profile for logback-spring.xml, in-memory DB
+        ctx = BenchmarkContext.start("--spring.profiles.active=test,prod",
+                "--spring.datasource.url=jdbc:h2:mem:logging",
+                "--logging.level.ru.javaops=" + level,
+                "--spring.jpa.show-sql=" + showSql);
+        BenchmarkContext.populate(ctx, USERS);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) ctx).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public String getByEmail() throws Exception {
+        String email = BenchmarkContext.email(ThreadLocalRandom.current().nextInt(USERS));
+        return mockMvc.perform(get(REST_URL + "/by-email").param("email", email))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,69 @@
+package ru.javaops.startup;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static ru.javaops.startup.user.web.AdminUserController.REST_URL;
+
+/**
+ * Load test over real HTTP (Tomcat, security, JDBC) with many concurrent clients:
+ * platform thread pool vs virtual threads. SampleTime mode reports p99 latency, throughput is ops/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(256)
+@Fork(1)
+public class ServerLoadBenchmark {
+    private static final int USERS = 10_000;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    // small Tomcat pool makes the platform-threads limit visible
+    @Param({"50"})
+    private int tomcatThreads;
+
+    private ConfigurableApplicationContext ctx;
+    private HttpClient client;
+    private String baseUrl;
+    private String authorization;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ctx = BenchmarkContext.start("--spring.threads.virtual.enabled=" + virtualThreads,
+                "--server.tomcat.threads.max=" + tomcatThreads);
+        BenchmarkContext.populate(ctx, USERS);
+        int port = ((WebServerApplicationContext) ctx).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + REST_URL + '/';
+        authorization = "Basic " + Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        ctx.close();
+    }
+
+    @Benchmark
+    public String get() throws Exception {
+        // ids of populated users follow BaseEntity.START_SEQ
+        int id = 1000 + ThreadLocalRandom.current().nextInt(USERS);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + id))
+                .header("Authorization", authorization).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
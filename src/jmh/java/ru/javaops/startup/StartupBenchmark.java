@@ -0,0 +1,81 @@
+package ru.javaops.startup;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.javaops.startup.user.repository.UserRepository;
+import ru.javaops.startup.user.to.UserView;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File H2 database with 1M users: application startup time and steady-state query latency.
+ * "create": schema is recreated by Hibernate on every start (former prod), "prod": versioned migrations
+ * (nothing to apply on restart), tuned pool and H2 cache from config/application-prod.yaml.
+ */
+public class StartupBenchmark {
+    private static final int USERS = 1_000_000;
+
+    @State(Scope.Benchmark)
+    public static class Database {
+        @Param({"create", "prod"})
+        private String schema;
+
+        private String[] args;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            String url = "jdbc:h2:" + Files.createTempDirectory("startup-bench").resolve("startup").toAbsolutePath();
+            args = schema.equals("prod") ?
+                    new String[]{"--spring.profiles.active=test,prod", "--spring.datasource.url=" + url + ";CACHE_SIZE=262144;QUERY_CACHE_SIZE=64"} :
+                    new String[]{"--spring.datasource.url=" + url, "--spring.jpa.hibernate.ddl-auto=create"};
+            try (ConfigurableApplicationContext ctx = BenchmarkContext.start(args)) {
+                BenchmarkContext.populate(ctx, USERS);
+            }
+        }
+    }
+
+    //  "create" drops populated tables at start: measured is the startup itself, not the data
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(3)
+    public void startup(Database db) {
+        BenchmarkContext.start(db.args).close();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Application {
+        private ConfigurableApplicationContext ctx;
+        private UserRepository repository;
+
+        @Setup(Level.Trial)
+        public void setup(Database db) {
+            ctx = BenchmarkContext.start(db.args);
+            repository = ctx.getBean(UserRepository.class);
+            if (repository.count() < USERS) {
+                // recreated by "create"
+                BenchmarkContext.populate(ctx, USERS);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            ctx.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    public UserView getExistedViewByEmail(Application app) {
+        return app.repository.getExistedViewByEmail(BenchmarkContext.email(ThreadLocalRandom.current().nextInt(USERS)));
+    }
+}
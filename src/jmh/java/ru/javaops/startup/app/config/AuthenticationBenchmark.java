@@ -0,0 +1,74 @@
+package ru.javaops.startup.app.config;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.javaops.startup.BenchmarkContext;
+import ru.javaops.startup.user.model.Role;
+import ru.javaops.startup.user.model.User;
+import ru.javaops.startup.user.repository.UserRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request authentication cost of DB user with bcrypt password:
+ * password encoder check for every request (dao), credentials cache (cached), access token (token)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class AuthenticationBenchmark {
+    private static final String EMAIL = "api@bench.com";
+    private static final String PASSWORD = "api-password";
+
+    @Param({"dao", "cached", "token"})
+    private String mode;
+
+    private ConfigurableApplicationContext ctx;
+    private AuthenticationProvider provider;
+    private AccessTokenService tokenService;
+    private UserRepository repository;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // test profile has no cache
+        ctx = BenchmarkContext.start("--spring.cache.type=caffeine");
+        PasswordEncoder passwordEncoder = ctx.getBean(PasswordEncoder.class);
+        repository = ctx.getBean(UserRepository.class);
+        User user = new User(null, "Api", EMAIL, "Client", Role.ADMIN);
+        user.setPassword(passwordEncoder.encode(PASSWORD));
+        repository.save(user);
+        tokenService = ctx.getBean(AccessTokenService.class);
+        token = tokenService.issue(EMAIL);
+        if (mode.equals("cached")) {
+            provider = ctx.getBean(CachingAuthenticationProvider.class);
+        } else {
+            DaoAuthenticationProvider dao = new DaoAuthenticationProvider(passwordEncoder);
+            dao.setUserDetailsService(ctx.getBean(UserDetailsService.class));
+            provider = dao;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public Object authenticate() {
+        if (mode.equals("token")) {
+            // as AccessTokenFilter: signature check and user state from cache
+            return repository.getExistedViewByEmail(tokenService.verify(token)).isEnabled();
+        }
+        return provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(EMAIL, PASSWORD));
+    }
+}
@@ -0,0 +1,51 @@
+package ru.javaops.startup.app.config;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import ru.javaops.startup.BenchmarkContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Page render throughput (layout with fragments): cached parsed templates vs re-parsing from disk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ViewRenderBenchmark {
+
+    @Param({"true", "false"})
+    private boolean cache;
+
+    private ConfigurableApplicationContext ctx;
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ctx = BenchmarkContext.start("--app.view.cache=" + cache);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) ctx).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public String index() throws Exception {
+        return mockMvc.perform(get("/")).andReturn().getResponse().getContentAsString();
+    }
+
+    @Benchmark
+    public String notFoundPage() throws Exception {
+        return mockMvc.perform(get("/view/404")).andReturn().getResponse().getContentAsString();
+    }
+}
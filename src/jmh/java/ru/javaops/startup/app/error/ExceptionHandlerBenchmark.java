@@ -0,0 +1,72 @@
+package ru.javaops.startup.app.error;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import ru.javaops.startup.BenchmarkContext;
+import ru.javaops.startup.common.error.ErrorType;
+import ru.javaops.startup.common.error.NotFoundException;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static ru.javaops.startup.user.web.AdminUserController.REST_URL;
+
+/**
+ * Error storm: throughput of 404 responses (target is 10k/s and more) and error type resolution
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExceptionHandlerBenchmark {
+
+    private ConfigurableApplicationContext ctx;
+    private MockMvc mockMvc;
+
+    private final Throwable mapped = new DataIntegrityViolationException("duplicate");
+    private final Throwable appException = new NotFoundException("not found");
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ctx = BenchmarkContext.start();
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) ctx).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int notFound() throws Exception {
+        return mockMvc.perform(get(REST_URL + "/0")).andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public Optional<ErrorType> findErrorType() {
+        return BasicExceptionHandler.findErrorType(mapped);
+    }
+
+    @Benchmark
+    public Optional<ErrorType> findAppErrorType() {
+        return BasicExceptionHandler.findErrorType(appException);
+    }
+
+    // baseline: linear scan of map for every exception
+    @Benchmark
+    public Optional<ErrorType> findErrorTypeScan() {
+        Class<? extends Throwable> exClass = mapped.getClass();
+        return BasicExceptionHandler.HTTP_STATUS_MAP.entrySet().stream()
+                .filter(entry -> entry.getKey().isAssignableFrom(exClass))
+                .findFirst().map(Map.Entry::getValue);
+    }
+}
@@ -0,0 +1,73 @@
+package ru.javaops.startup.common.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.hibernate5.jakarta.Hibernate5JakartaModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.javaops.startup.BenchmarkContext;
+import ru.javaops.startup.user.model.User;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonUtilBenchmark {
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private ConfigurableApplicationContext ctx;
+    private List<User> users;
+    private String json;
+    // mapper as before Blackbird: reflection accessors
+    private ObjectMapper reflectionMapper;
+    private ObjectMapper smileMapper;
+
+    // context configures JsonUtil mapper exactly as in application
+    @Setup(Level.Trial)
+    public void setup() {
+        ctx = BenchmarkContext.start();
+        users = IntStream.range(0, size).mapToObj(i -> {
+            User user = BenchmarkContext.user(i);
+            user.setId(i + 1);
+            return user;
+        }).toList();
+        json = JsonUtil.writeValue(users);
+        reflectionMapper = ctx.getBean(Jackson2ObjectMapperBuilder.class).build().registerModule(new Hibernate5JakartaModule());
+        smileMapper = ctx.getBean(ObjectMapper.class).copyWith(new SmileFactory());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public String writeValue() {
+        return JsonUtil.writeValue(users);
+    }
+
+    @Benchmark
+    public List<User> readValues() {
+        return JsonUtil.readValues(json, User.class);
+    }
+
+    @Benchmark
+    public String writeValueReflection() throws JsonProcessingException {
+        return reflectionMapper.writeValueAsString(users);
+    }
+
+    @Benchmark
+    public byte[] writeSmile() throws JsonProcessingException {
+        return smileMapper.writeValueAsBytes(users);
+    }
+}
@@ -0,0 +1,32 @@
+package ru.javaops.startup.common.validation;
+
+import org.jsoup.Jsoup;
+import org.jsoup.safety.Safelist;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoHtmlValidatorBenchmark {
+
+    @Param({"Grigory", "grigory.kislin@javaops.ru", "Кислин-Иванов", "Tom & Jerry", "<b>bold</b>"})
+    private String value;
+
+    private final NoHtmlValidator validator = new NoHtmlValidator();
+
+    @Benchmark
+    public boolean isValid() {
+        return validator.isValid(value, null);
+    }
+
+    // baseline: full Jsoup parsing for every value
+    @Benchmark
+    public boolean jsoup() {
+        return Jsoup.isValid(value, Safelist.none());
+    }
+}
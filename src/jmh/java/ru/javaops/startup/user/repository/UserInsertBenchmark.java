@@ -0,0 +1,53 @@
+package ru.javaops.startup.user.repository;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.javaops.startup.BenchmarkContext;
+import ru.javaops.startup.user.model.User;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Insert throughput (users/s) of chunked saveAll, as in bulk import.
+ * batchSize=1 switches JDBC batching off, i.e. what IDENTITY ids were doing before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserInsertBenchmark {
+    private static final int CHUNK = 1000;
+
+    @Param({"1", "20"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext ctx;
+    private UserRepository repository;
+    private TransactionTemplate transactionTemplate;
+    private int created;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ctx = BenchmarkContext.start(
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+        repository = ctx.getBean(UserRepository.class);
+        transactionTemplate = ctx.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK)
+    public List<User> saveAll() {
+        int from = created;
+        created += CHUNK;
+        return transactionTemplate.execute(status ->
+                repository.saveAll(IntStream.range(from, from + CHUNK).mapToObj(BenchmarkContext::user).toList()));
+    }
+}
@@ -0,0 +1,67 @@
+package ru.javaops.startup.user.repository;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import ru.javaops.startup.BenchmarkContext;
+import ru.javaops.startup.common.util.JsonUtil;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read and serialize users as entities vs query projections (cache is off in test profile).
+ * Allocation per operation: add "-prof gc" to jmh.params
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserReadModelBenchmark {
+
+    @Param({"10000", "100000"})
+    private int users;
+
+    private ConfigurableApplicationContext ctx;
+    private UserRepository repository;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ctx = BenchmarkContext.start();
+        BenchmarkContext.populate(ctx, users);
+        repository = ctx.getBean(UserRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String getAllEntities() {
+        return JsonUtil.writeValue(repository.findAll(Sort.by(Sort.Direction.ASC, "name", "email")));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String getAllViews() {
+        return JsonUtil.writeValue(repository.findAllViews());
+    }
+
+    @Benchmark
+    public String getByEmailEntity() {
+        return JsonUtil.writeValue(repository.getExistedByEmail(randomEmail()));
+    }
+
+    @Benchmark
+    public String getByEmailView() {
+        return JsonUtil.writeValue(repository.findViewByEmailIgnoreCase(randomEmail()).orElseThrow());
+    }
+
+    private String randomEmail() {
+        return BenchmarkContext.email(ThreadLocalRandom.current().nextInt(users));
+    }
+}
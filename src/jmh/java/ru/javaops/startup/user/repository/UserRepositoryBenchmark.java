@@ -0,0 +1,45 @@
+package ru.javaops.startup.user.repository;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.javaops.startup.BenchmarkContext;
+import ru.javaops.startup.user.model.User;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Case-insensitive email lookup: must stay flat (index seek) with table growth
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserRepositoryBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int users;
+
+    private ConfigurableApplicationContext ctx;
+    private UserRepository repository;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ctx = BenchmarkContext.start();
+        BenchmarkContext.populate(ctx, users);
+        repository = ctx.getBean(UserRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public Optional<User> findByEmailIgnoreCase() {
+        return repository.findByEmailIgnoreCase(BenchmarkContext.email(ThreadLocalRandom.current().nextInt(users)).toUpperCase());
+    }
+}
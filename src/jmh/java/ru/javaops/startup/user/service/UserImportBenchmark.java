@@ -0,0 +1,62 @@
+package ru.javaops.startup.user.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.javaops.startup.BenchmarkContext;
+import ru.javaops.startup.user.to.ImportResultTo;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Import throughput (users/s) of NDJSON rows, by chunks as in POST /import.
+ * password: "none" - rows without password, "plain" - each password is encoded by bcrypt (~100 ms of CPU, in parallel by cores),
+ * "encoded" - bcrypt hashes of other system are imported as is (encodedPasswords)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class UserImportBenchmark {
+    private static final int ROWS = 100;
+
+    @Param({"none", "plain", "encoded"})
+    private String password;
+
+    private ConfigurableApplicationContext ctx;
+    private UserImportService importService;
+    private String encoded;
+    private int created;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ctx = BenchmarkContext.start();
+        importService = ctx.getBean(UserImportService.class);
+        encoded = ctx.getBean(PasswordEncoder.class).encode("password");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public ImportResultTo importUsers() {
+        StringBuilder body = new StringBuilder();
+        for (int i = created; i < created + ROWS; i++) {
+            body.append("{\"name\":\"Name").append(i).append("\",\"email\":\"").append(BenchmarkContext.email(i))
+                    .append("\",\"lastName\":\"LastName").append(i).append('"');
+            switch (password) {
+                case "plain" -> body.append(",\"password\":\"password").append(i).append('"');
+                case "encoded" -> body.append(",\"password\":\"").append(encoded).append('"');
+            }
+            body.append(",\"roles\":[\"USER\"]}\n");
+        }
+        created += ROWS;
+        return importService.importUsers(new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)),
+                password.equals("encoded"));
+    }
+}
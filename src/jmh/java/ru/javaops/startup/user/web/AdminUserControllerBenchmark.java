@@ -0,0 +1,95 @@
+package ru.javaops.startup.user.web;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import ru.javaops.startup.BenchmarkContext;
+import ru.javaops.startup.common.util.JsonUtil;
+import ru.javaops.startup.user.to.ChangeCursor;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static ru.javaops.startup.user.web.AdminUserController.REST_URL;
+
+/**
+ * Full MVC path (binding, validation, repository, JSON) without HTTP and security filters
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdminUserControllerBenchmark {
+
+    @Param({"10000", "100000"})
+    private int users;
+
+    private ConfigurableApplicationContext ctx;
+    private MockMvc mockMvc;
+    private int created;
+    //  cursor of sync pass after population: next passes get only users created by benchmark
+    private String syncCursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ctx = BenchmarkContext.start();
+        BenchmarkContext.populate(ctx, users);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) ctx).build();
+        created = users;
+        syncCursor = new ChangeCursor(Instant.now(), 0, false).encode();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String getAll() throws Exception {
+        return mockMvc.perform(get(REST_URL)).andReturn().getResponse().getContentAsString();
+    }
+
+    //  incremental sync instead of getAll
+    @Benchmark
+    public String getChanges() throws Exception {
+        return mockMvc.perform(get(REST_URL + "/changes").param("cursor", syncCursor))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    @Benchmark
+    public String getPage() throws Exception {
+        return mockMvc.perform(get(REST_URL + "/page")).andReturn().getResponse().getContentAsString();
+    }
+
+    @Benchmark
+    public String getByEmail() throws Exception {
+        String email = BenchmarkContext.email(ThreadLocalRandom.current().nextInt(users));
+        return mockMvc.perform(get(REST_URL + "/by-email").param("email", email))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    //  prefix of random name: union of range scans of name/lastName/email lower-cased indexes, see UserSearchService
+    @Benchmark
+    public String search() throws Exception {
+        String query = "name" + ThreadLocalRandom.current().nextInt(users);
+        return mockMvc.perform(get(REST_URL + "/search").param("query", query).param("roles", "USER"))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    @Benchmark
+    public String createWithLocation() throws Exception {
+        return mockMvc.perform(post(REST_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(JsonUtil.writeValue(BenchmarkContext.user(created++))))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,85 @@
+package ru.javaops.startup.app.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+
+/**
+ * Authenticates request by access token from "Authorization: Bearer" header (API clients)
+ * or from cookie set at form login (UI). Invalid, expired or revoked token leaves request unauthenticated.
+ */
+public class AccessTokenFilter extends OncePerRequestFilter {
+    public static final String TOKEN_COOKIE = "access_token";
+    private static final String BEARER = "Bearer ";
+
+    private final AccessTokenService tokenService;
+    private final UserDetailsService userDetailsService;
+
+    //  userDetailsService must be cheap (cached): it is called for every request with token
+    public AccessTokenFilter(AccessTokenService tokenService, UserDetailsService userDetailsService) {
+        this.tokenService = tokenService;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = extractToken(request);
+        if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String username = tokenService.verify(token);
+            if (username != null) {
+                authenticate(request, username);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private void authenticate(HttpServletRequest request, String username) {
+        UserDetails user;
+        try {
+            user = userDetailsService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException e) {
+            logger.debug("Token of deleted user " + username);
+            return;
+        }
+        if (!user.isEnabled()) {
+            logger.debug("Token of disabled user " + username);
+            return;
+        }
+        TokenAuthentication authentication = new TokenAuthentication(user);
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    //  request is authenticated by token, not by password: new token is not issued by token (see SecurityConfig),
+    //  so stolen token can't be prolonged beyond its ttl
+    public static class TokenAuthentication extends UsernamePasswordAuthenticationToken {
+        TokenAuthentication(UserDetails user) {
+            super(user, null, user.getAuthorities());
+        }
+    }
+
+    @Nullable
+    private static String extractToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null) {
+            return header.regionMatches(true, 0, BEARER, 0, BEARER.length()) ? header.substring(BEARER.length()).strip() : null;
+        }
+        Cookie cookie = WebUtils.getCookie(request, TOKEN_COOKIE);
+        return cookie == null ? null : cookie.getValue();
+    }
+}
@@ -0,0 +1,84 @@
+package ru.javaops.startup.app.config;
+
+import org.springframework.lang.Nullable;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Stateless access token: {@code base64url(username).expiresEpochSecond.base64url(HMAC-SHA256)}.
+ * Verified by any node with the same secret (app.token.secret), without session or DB lookup of credentials.
+ * Token doesn't hold authorities: they are taken from current user state (see SecurityConfig), so disabled user is revoked.
+ */
+public class AccessTokenService {
+    private static final String HMAC = "HmacSHA256";
+    //  HMAC-SHA256 key shorter than its output weakens signature: start fails with short app.token.secret
+    public static final int MIN_SECRET_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec secret;
+    private final Duration ttl;
+    private final Clock clock;
+
+    public AccessTokenService(byte[] secret, Duration ttl, Clock clock) {
+        if (secret.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("app.token.secret must be at least " + MIN_SECRET_BYTES + " bytes, got " + secret.length);
+        }
+        this.secret = new SecretKeySpec(secret, HMAC);
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public String issue(String username) {
+        String payload = ENCODER.encodeToString(username.getBytes(StandardCharsets.UTF_8)) + '.' +
+                clock.instant().plus(ttl).getEpochSecond();
+        return payload + '.' + ENCODER.encodeToString(sign(payload));
+    }
+
+    //  username of valid not expired token, null otherwise
+    @Nullable
+    public String verify(String token) {
+        int sigStart = token.lastIndexOf('.');
+        int expiresStart = token.lastIndexOf('.', sigStart - 1);
+        if (expiresStart <= 0) {
+            return null;
+        }
+        String payload = token.substring(0, sigStart);
+        try {
+            // constant-time comparison: no timing leak of valid signature prefix
+            if (!MessageDigest.isEqual(sign(payload), DECODER.decode(token.substring(sigStart + 1)))) {
+                return null;
+            }
+            long expires = Long.parseLong(payload, expiresStart + 1, payload.length(), 10);
+            if (clock.instant().getEpochSecond() >= expires) {
+                return null;
+            }
+            return new String(DECODER.decode(payload.substring(0, expiresStart)), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            // malformed base64 or expiration
+            return null;
+        }
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            // Mac is not thread-safe and cheap to create
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(secret);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -3,15 +3,24 @@ package ru.javaops.startup.app.config;
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.hibernate5.jakarta.Hibernate5JakartaModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import lombok.extern.slf4j.Slf4j;
 import org.h2.tools.Server;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import ru.javaops.startup.common.util.JsonUtil;
 
 import java.sql.SQLException;
@@ -23,13 +32,29 @@ import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.NONE;
 @Configuration
 @Slf4j
 @EnableCaching
+@EnableScheduling
 public class AppConfig {
 
+    //  connections from localhost only (ssh tunnel for remote access)
     @Profile("!test")
     @Bean(initMethod = "start", destroyMethod = "stop")
     Server h2Server() throws SQLException {
         log.info("Start H2 TCP server");
-        return Server.createTcpServer("-tcp", "-tcpAllowOthers", "-tcpPort", "9092");
+        return Server.createTcpServer("-tcp", "-tcpPort", "9092");
+    }
+
+    //  Caffeine cache manager is not transaction-aware: @CacheEvict inside transaction would evict before commit,
+    //  and concurrent read would cache old state till TTL. Decorated caches put/evict after commit
+    //  (immediately without transaction); cache metrics unwrap the decorator
+    @Bean
+    static BeanPostProcessor transactionAwareCacheManager() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof CacheManager cacheManager && !(bean instanceof TransactionAwareCacheManagerProxy) ?
+                        new TransactionAwareCacheManagerProxy(cacheManager) : bean;
+            }
+        };
     }
 
     //   https://stackoverflow.com/a/74630129/548473
@@ -42,8 +67,21 @@ public class AppConfig {
     @Autowired
     void configureAndStoreObjectMapper(ObjectMapper objectMapper) {
         objectMapper.registerModule(new Hibernate5JakartaModule());
+        objectMapper.registerModule(new BlackbirdModule());
         // ErrorHandling: https://stackoverflow.com/questions/7421474/548473
         objectMapper.addMixIn(ProblemDetail.class, MixIn.class);
         JsonUtil.setMapper(objectMapper);
     }
+
+    //  Binary formats for internal clients by Accept/Content-Type, json stays default.
+    //  Replace Spring MVC default converters: mapper copies keep json configuration (visibility, modules, mixins)
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(objectMapper.copyWith(new SmileFactory()));
+    }
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2CborHttpMessageConverter(objectMapper.copyWith(new CBORFactory()));
+    }
 }
@@ -0,0 +1,73 @@
+package ru.javaops.startup.app.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+
+/**
+ * HTTP Basic clients send credentials with every request: password encoder check (bcrypt, ~100 ms of CPU)
+ * is done once per cache entry lifetime (see spring.cache.caffeine.spec), then credentials are matched by cache key.
+ * Key is HMAC of username and password with random per start secret: cache holds no password or its offline-checkable hash.
+ * Only successful authentications are cached, entries are evicted on any user modification (see UserRepository).
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+    private static final String HMAC = "HmacSHA256";
+
+    private final AuthenticationProvider delegate;
+    private final Cache cache;
+    private final SecretKeySpec secret;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, Cache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.secret = new SecretKeySpec(key, HMAC);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (authentication.getCredentials() == null) {
+            return delegate.authenticate(authentication);
+        }
+        String key = credentialsKey(authentication.getName(), authentication.getCredentials().toString());
+        UserDetails cached = cache.get(key, UserDetails.class);
+        if (cached != null) {
+            return UsernamePasswordAuthenticationToken.authenticated(cached, null, cached.getAuthorities());
+        }
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.getPrincipal() instanceof UserDetails user) {
+            cache.put(key, User.withUserDetails(user).password("").build());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    private String credentialsKey(String username, String password) {
+        try {
+            // Mac is not thread-safe and cheap to create
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(secret);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return HexFormat.of().formatHex(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
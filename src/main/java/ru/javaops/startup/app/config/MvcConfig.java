@@ -1,15 +1,28 @@
 package ru.javaops.startup.app.config;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
 import org.springframework.web.servlet.mvc.UrlFilenameViewController;
+import org.springframework.web.servlet.resource.CssLinkResourceTransformer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import static org.springframework.core.Ordered.LOWEST_PRECEDENCE;
 
@@ -17,12 +30,47 @@ import static org.springframework.core.Ordered.LOWEST_PRECEDENCE;
 @Configuration
 // http://docs.spring.io/spring-boot/docs/current/reference/htmlsingle/#boot-features-spring-mvc-auto-configuration
 public class MvcConfig implements WebMvcConfigurer {
+    //  https://docs.spring.io/spring-framework/reference/web/webmvc/mvc-config/static-resources.html
+    //  Links in templates (@{/static/...}) are rewritten to content-hashed urls by ResourceUrlEncodingFilter,
+    //  links inside css (url(../webfonts/...), @import) to absolute ones by CssLinkResourceTransformer,
+    //  so these resources could be cached by browser forever: new content gets new url.
+    //  Resolved resources (hash, precompressed variant) are cached in memory by resourceChain(true)
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/static/**").addResourceLocations("file:./resources/static/");
+        // no cache control here: it depends on versioned url (see addInterceptors)
+        registry.addResourceHandler("/static/**").addResourceLocations("file:./resources/static/")
+                .resourceChain(true)
+                // .br/.gz files next to original (see config/compress-static.sh) by Accept-Encoding.
+                // Precompressed css is not transformed: css is compressed on the fly
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"))
+                .addTransformer(new CssLinkResourceTransformer());
         registry.setOrder(LOWEST_PRECEDENCE);
     }
 
+    //  content-hashed url never changes its content: immutable.
+    //  Unversioned urls (robots.txt, source maps, direct links) may change with the same url: short max-age
+    static final Pattern VERSIONED_URL = Pattern.compile("-[0-9a-f]{32}\\.\\w+$");
+    static final String VERSIONED_CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue();
+    static final String UNVERSIONED_CACHE_CONTROL = CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic().getHeaderValue();
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, VERSIONED_URL.matcher(request.getRequestURI()).find() ?
+                        VERSIONED_CACHE_CONTROL : UNVERSIONED_CACHE_CONTROL);
+                return true;
+            }
+        }).addPathPatterns("/static/**");
+    }
+
+    @Bean
+    ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+
     @Override
     public void addViewControllers(ViewControllerRegistry registry) {
         registry.addViewController("/").setViewName("index");
@@ -1,14 +1,38 @@
 package ru.javaops.startup.app.config;
 
+import jakarta.servlet.http.Cookie;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import ru.javaops.startup.common.error.NotFoundException;
 import ru.javaops.startup.user.model.Role;
+import ru.javaops.startup.user.repository.UserRepository;
+import ru.javaops.startup.user.to.UserView;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
 
 import static org.springframework.security.config.Customizer.withDefaults;
 
@@ -20,14 +44,111 @@ public class SecurityConfig {
     public static final String API_PATH = "/api";
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    PasswordEncoder passwordEncoder() {
+        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    }
+
+    //  users with password by email, spring.security.user (service account from properties) has precedence
+    @Bean
+    UserDetailsService userDetailsService(UserRepository repository, SecurityProperties properties) {
+        UserDetails serviceAccount = serviceAccount(properties);
+        return username -> {
+            if (username.equals(serviceAccount.getUsername())) {
+                // copy: credentials of returned user are erased after authentication
+                return User.withUserDetails(serviceAccount).build();
+            }
+            return repository.findByEmailIgnoreCase(username)
+                    .filter(user -> user.getPassword() != null)
+                    .map(user -> User.withUsername(user.getEmail()).password(user.getPassword())
+                            .authorities(user.getRoles()).disabled(!user.isEnabled()).build())
+                    .orElseThrow(() -> new UsernameNotFoundException("User '" + username + "' was not found"));
+        };
+    }
+
+    //  user of access token: current roles and enabled state from cached view (evicted on modification), no password
+    private static UserDetailsService tokenUserDetailsService(UserRepository repository, SecurityProperties properties) {
+        UserDetails serviceAccount = User.withUserDetails(serviceAccount(properties)).password("").build();
+        return username -> {
+            if (username.equals(serviceAccount.getUsername())) {
+                return serviceAccount;
+            }
+            try {
+                UserView user = repository.getExistedViewByEmail(username);
+                return User.withUsername(user.getEmail()).password("")
+                        .authorities(user.getRoles()).disabled(!user.isEnabled()).build();
+            } catch (NotFoundException e) {
+                throw new UsernameNotFoundException("User '" + username + "' was not found");
+            }
+        };
+    }
+
+    private static UserDetails serviceAccount(SecurityProperties properties) {
+        SecurityProperties.User account = properties.getUser();
+        // as in UserDetailsServiceAutoConfiguration: plain password if not encoded
+        String password = account.getPassword().matches("^\\{.+}.*$") ? account.getPassword() : "{noop}" + account.getPassword();
+        return User.withUsername(account.getName()).password(password)
+                .roles(account.getRoles().toArray(String[]::new)).build();
+    }
+
+    //  all nodes must have the same app.token.secret to accept tokens issued by each other
+    @Bean
+    AccessTokenService accessTokenService(@Value("${app.token.secret:}") String secret, @Value("${app.token.ttl:30m}") Duration ttl) {
+        byte[] key;
+        if (secret.isBlank()) {
+            log.warn("app.token.secret is not set: access tokens are valid at this node until restart");
+            key = new byte[AccessTokenService.MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        return new AccessTokenService(key, ttl, Clock.systemUTC());
+    }
+
+    //  global AuthenticationManager (form login and HTTP Basic) uses this single provider
+    @Bean
+    CachingAuthenticationProvider authenticationProvider(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+                                                         CacheManager cacheManager) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(passwordEncoder);
+        provider.setUserDetailsService(userDetailsService);
+        return new CachingAuthenticationProvider(provider, cacheManager.getCache(UserRepository.CREDENTIALS_CACHE));
+    }
+
+    //  No HTTP session: request is authenticated by access token (Bearer header or cookie of form login)
+    //  or by HTTP Basic (verified credentials are cached, see CachingAuthenticationProvider)
+    @Bean
+    public SecurityFilterChain filterChain(HttpSecurity http, AccessTokenService tokenService,
+                                           UserRepository repository, SecurityProperties properties) throws Exception {
+        // not a bean: Spring Boot would register bean filter in servlet container as well
+        AccessTokenFilter tokenFilter = new AccessTokenFilter(tokenService, tokenUserDetailsService(repository, properties));
         http.authorizeHttpRequests(authz -> authz
-                        .requestMatchers(API_PATH + "/admin/**", "/v3/api-docs/**", "/swagger-ui.html", "/swagger-ui/**").hasRole(Role.ADMIN.name())
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers(API_PATH + "/admin/**", "/actuator/**", "/v3/api-docs/**", "/swagger-ui.html", "/swagger-ui/**").hasRole(Role.ADMIN.name())
+                        // token is issued for password (HTTP Basic) only, not for another token
+                        .requestMatchers(API_PATH + "/auth/token").access((authentication, context) ->
+                                new AuthorizationDecision(authentication.get() instanceof UsernamePasswordAuthenticationToken auth
+                                        && auth.isAuthenticated() && !(auth instanceof AccessTokenFilter.TokenAuthentication)))
+                        .requestMatchers(API_PATH + "/auth/**").authenticated()
                         .anyRequest().permitAll())
-                .formLogin(flc -> flc.loginPage("/view/login"))
+                .sessionManagement(smc -> smc.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(tokenFilter, BasicAuthenticationFilter.class)
+                .formLogin(flc -> flc.loginPage("/view/login").successHandler(tokenCookieHandler(tokenService)))
                 .httpBasic(withDefaults())
-                .logout(lc -> lc.logoutUrl("/view/logout").logoutSuccessUrl("/"))
+                .logout(lc -> lc.logoutUrl("/view/logout").logoutSuccessUrl("/").deleteCookies(AccessTokenFilter.TOKEN_COOKIE))
                 .csrf(AbstractHttpConfigurer::disable);
         return http.build();
     }
+
+    //  UI gets token in HttpOnly cookie instead of session id
+    private static AuthenticationSuccessHandler tokenCookieHandler(AccessTokenService tokenService) {
+        return (request, response, authentication) -> {
+            Cookie cookie = new Cookie(AccessTokenFilter.TOKEN_COOKIE, tokenService.issue(authentication.getName()));
+            cookie.setHttpOnly(true);
+            cookie.setSecure(request.isSecure());
+            cookie.setPath("/");
+            cookie.setMaxAge((int) tokenService.getTtl().toSeconds());
+            cookie.setAttribute("SameSite", "Lax");
+            response.addCookie(cookie);
+            response.sendRedirect("/");
+        };
+    }
 }
\ No newline at end of file
@@ -1,23 +1,83 @@
 package ru.javaops.startup.app.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 import org.thymeleaf.templateresolver.FileTemplateResolver;
 
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
 //http://www.thymeleaf.org/doc/articles/thymeleaf3migration.html
 @Configuration
+@Slf4j
 public class ThymeleafConfig {
+    static final String VIEW_DIR = "./resources/view/";
 
+    //  Cached are parsed templates, including layout/main with its fragments: every page is rendered from memory.
+    //  app.view.cache=false re-reads and re-parses templates on every render (previous behavior),
+    //  app.view.watch=true keeps the cache and clears it on change of any view file (for development)
     @Bean
-    public SpringTemplateEngine thymeleafTemplateEngine() {
+    public SpringTemplateEngine thymeleafTemplateEngine(@Value("${app.view.cache:true}") boolean cache) {
         return new SpringTemplateEngine() {{
             addTemplateResolver(new FileTemplateResolver() {{
-                setPrefix("./resources/view/");
-                setCacheable(false);
+                setPrefix(VIEW_DIR);
+                setCacheable(cache);
+                // no TTL: cached until restart or invalidation by watcher
+                setCacheTTLMs(null);
                 setSuffix(".html");
                 setCharacterEncoding("UTF-8");
             }});
         }};
     }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty("app.view.watch")
+    WatchService viewWatchService(SpringTemplateEngine templateEngine) throws IOException {
+        Path viewDir = Path.of(VIEW_DIR);
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        registerTree(viewDir, watchService);
+        Thread.ofVirtual().name("view-watcher").start(() -> {
+            try {
+                for (WatchKey key = watchService.take(); ; key = watchService.take()) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        // directory created after start (possibly with subdirs and templates) is watched as well
+                        if (event.kind() == ENTRY_CREATE) {
+                            Path created = ((Path) key.watchable()).resolve((Path) event.context());
+                            if (Files.isDirectory(created)) {
+                                try {
+                                    registerTree(created, watchService);
+                                } catch (IOException e) {
+                                    log.warn("Can't watch view templates in {}: {}", created, e.toString());
+                                }
+                            }
+                        }
+                    }
+                    // changed layout affects all pages: clear whole cache
+                    log.info("View templates in {} are changed, clear template cache", key.watchable());
+                    templateEngine.clearTemplateCache();
+                    key.reset();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                log.debug("View watcher is stopped");
+            }
+        });
+        log.info("Watch view templates in {}", viewDir.toAbsolutePath().normalize());
+        return watchService;
+    }
+
+    // WatchService is not recursive: register dir and all its subdirs (layout)
+    private static void registerTree(Path root, WatchService watchService) throws IOException {
+        try (Stream<Path> dirs = Files.walk(root)) {
+            for (Path dir : dirs.filter(Files::isDirectory).toList()) {
+                dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            }
+        }
+    }
 }
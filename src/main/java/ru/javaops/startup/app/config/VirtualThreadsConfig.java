@@ -0,0 +1,49 @@
+package ru.javaops.startup.app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+//  https://docs.spring.io/spring-boot/reference/features/spring-application.html#features.spring-application.virtual-threads
+//  Enabled by spring.threads.virtual.enabled: Tomcat, @Transactional repository calls run on virtual threads.
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class VirtualThreadsConfig {
+
+    VirtualThreadsConfig(HikariDataSource dataSource) {
+        // requests are not limited by Tomcat pool anymore, JDBC concurrency is limited by connection pool only
+        log.info("Virtual threads are enabled, JDBC concurrency is limited by '{}' maximumPoolSize={}",
+                dataSource.getPoolName(), dataSource.getMaximumPoolSize());
+    }
+
+    //  https://openjdk.org/jeps/444#Observing-virtual-threads
+    //  virtual thread blocked inside synchronized (H2, JDBC driver) pins its carrier thread
+    @Bean(initMethod = "startAsync", destroyMethod = "close")
+    RecordingStream pinnedThreadsRecording(MeterRegistry registry,
+                                           @Value("${app.virtual-threads.pinned-threshold:20ms}") Duration threshold) {
+        Counter pinned = registry.counter("jvm.threads.virtual.pinned");
+        RecordingStream recording = new RecordingStream();
+        recording.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        recording.onEvent("jdk.VirtualThreadPinned", event -> {
+            pinned.increment();
+            String frames = event.getStackTrace() == null ? "" : event.getStackTrace().getFrames().stream()
+                    .limit(8).map(RecordedFrame::getMethod)
+                    .map(m -> m.getType().getName() + '.' + m.getName())
+                    .collect(Collectors.joining(" <- "));
+            log.warn("Virtual thread pinned for {} ms: {}", event.getDuration().toMillis(), frames);
+        });
+        return recording;
+    }
+}
@@ -1,5 +1,7 @@
 package ru.javaops.startup.app.error;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ValidationException;
@@ -7,6 +9,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.NestedExceptionUtils;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
@@ -21,9 +24,12 @@ import ru.javaops.startup.common.error.ErrorType;
 
 import java.io.FileNotFoundException;
 import java.nio.file.AccessDeniedException;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 import static ru.javaops.startup.common.error.ErrorType.*;
@@ -35,6 +41,20 @@ public class BasicExceptionHandler {
     @Autowired
     protected ErrorMessageHandler errorMessageHandler;
 
+    private final Map<ErrorType, Counter> errorCounters = new EnumMap<>(ErrorType.class);
+
+    @Autowired
+    void registerErrorCounters(MeterRegistry registry) {
+        for (ErrorType type : ErrorType.values()) {
+            errorCounters.put(type, Counter.builder("app.errors").tag("type", type.name())
+                    .description("Handled errors by ErrorType").register(registry));
+        }
+    }
+
+    protected void countError(ErrorType type) {
+        errorCounters.get(type).increment();
+    }
+
     //    https://stackoverflow.com/a/52254601/548473
     static final Map<Class<? extends Throwable>, ErrorType> HTTP_STATUS_MAP = new LinkedHashMap<>() {
         {
@@ -46,6 +66,7 @@ public class BasicExceptionHandler {
             put(UnsupportedOperationException.class, APP_ERROR);
             put(EntityNotFoundException.class, DATA_CONFLICT);
             put(DataIntegrityViolationException.class, DATA_CONFLICT);
+            put(OptimisticLockingFailureException.class, DATA_CONFLICT);
             put(IllegalArgumentException.class, BAD_DATA);
             put(ValidationException.class, BAD_REQUEST);
             put(HttpRequestMethodNotSupportedException.class, BAD_REQUEST);
@@ -77,31 +98,75 @@ public class BasicExceptionHandler {
             }
         }
         if (optType.isPresent()) {
-            log.error(ERR_PFX + "Exception {} at request {}", ex, path);
+            //  client errors are expected in normal operation: warn without stack trace, don't trigger error alerts
+            if (optType.get().status.is4xxClientError()) {
+                log.warn(ERR_PFX + "Exception {} at request {}", ex, path);
+            } else {
+                log.error(ERR_PFX + "Exception {} at request {}", ex, path);
+            }
+            countError(optType.get());
             return processor.process(ex, path, optType.get(), ex.getLocalizedMessage());
         } else {
-            log.error(ERR_PFX + "Exception " + ex + " at request " + path, ex);
+            if (sampleStackTrace(ex.getClass())) {
+                log.error(ERR_PFX + "Exception " + ex + " at request " + path, ex);
+            } else {
+                log.error(ERR_PFX + "Exception {} at request {} (stack trace is logged once per {} s)", ex, path, STACK_TRACE_INTERVAL_SEC);
+            }
+            countError(APP_ERROR);
             return processor.process(ex, path, APP_ERROR, ex.getClass().getSimpleName());
         }
     }
 
     // Process error from ErrorController
-    public <T> T processError(@Nullable Throwable th, String path, String msg, Processor<T> processor, Supplier<T> supplier) {
+    public <T> T processError(@Nullable Throwable th, String path, @Nullable Integer intStatus, String msg, Processor<T> processor, Supplier<T> supplier) {
         if (th != null) {
             return processException(th, path, processor);
         }
-        log.error(ERR_PFX + "Exception " + msg + " at request " + path);
+        //  no exception, level by response status as for mapped exceptions.
+        //  Missing paths (404) are requested by crawlers and scanners all the time: debug only
+        HttpStatus status = getStatus(intStatus);
+        if (status == HttpStatus.NOT_FOUND) {
+            log.debug(ERR_PFX + "Error {} {} at request {}", status.value(), msg, path);
+        } else if (status.is4xxClientError()) {
+            log.warn(ERR_PFX + "Error {} {} at request {}", status.value(), msg, path);
+        } else {
+            log.error(ERR_PFX + "Error {} {} at request {}", status.value(), msg, path);
+        }
         return supplier.get();
     }
 
-    private Optional<ErrorType> findErrorType(Throwable ex) {
+    static Optional<ErrorType> findErrorType(Throwable ex) {
         if (ex instanceof AppException ae) {
             return Optional.of(ae.getErrorType());
         }
-        Class<? extends Throwable> exClass = ex.getClass();
-        return HTTP_STATUS_MAP.entrySet().stream()
-                .filter(entry -> entry.getKey().isAssignableFrom(exClass))
-                .findAny().map(Map.Entry::getValue);
+        return ERROR_TYPES.get(ex.getClass());
+    }
+
+    //  https://docs.oracle.com/en/java/javase/21/docs/api/java.base/java/lang/ClassValue.html
+    //  map lookup by assignable class is done once per exception class, not for every exception
+    private static final ClassValue<Optional<ErrorType>> ERROR_TYPES = new ClassValue<>() {
+        @Override
+        protected Optional<ErrorType> computeValue(Class<?> exClass) {
+            return HTTP_STATUS_MAP.entrySet().stream()
+                    .filter(entry -> entry.getKey().isAssignableFrom(exClass))
+                    .findFirst().map(Map.Entry::getValue);
+        }
+    };
+
+    //  error storm of the same unexpected exception: full stack trace is written once per interval
+    static final long STACK_TRACE_INTERVAL_SEC = 10;
+    private static final ClassValue<AtomicLong> LAST_STACK_TRACE = new ClassValue<>() {
+        @Override
+        protected AtomicLong computeValue(Class<?> exClass) {
+            return new AtomicLong(System.nanoTime() - TimeUnit.SECONDS.toNanos(STACK_TRACE_INTERVAL_SEC));
+        }
+    };
+
+    static boolean sampleStackTrace(Class<? extends Throwable> exClass) {
+        AtomicLong last = LAST_STACK_TRACE.get(exClass);
+        long prev = last.get();
+        long now = System.nanoTime();
+        return now - prev >= TimeUnit.SECONDS.toNanos(STACK_TRACE_INTERVAL_SEC) && last.compareAndSet(prev, now);
     }
 
     //  https://stackoverflow.com/a/65442410/548473
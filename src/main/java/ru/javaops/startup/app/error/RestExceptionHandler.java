@@ -3,17 +3,18 @@ package ru.javaops.startup.app.error;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.validation.BindException;
-import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.javaops.startup.common.error.ErrorType;
+import ru.javaops.startup.user.model.User;
 
 import java.net.URI;
 import java.util.Map;
@@ -24,15 +25,40 @@ import static ru.javaops.startup.common.error.ErrorType.BAD_REQUEST;
 @AllArgsConstructor
 @Slf4j
 public class RestExceptionHandler extends BasicExceptionHandler {
+    public static final String EXCEPTION_DUPLICATE_EMAIL = "User with this email already exists";
+
+    // unique index name (lower case) -> invalid field and message
+    private static final Map<String, Map.Entry<String, String>> CONSTRAINTS_MAP = Map.of(
+            User.EMAIL_UNIQUE_IDX, Map.entry("email", EXCEPTION_DUPLICATE_EMAIL));
 
     @ExceptionHandler(BindException.class)
     ProblemDetail bindException(BindException ex, HttpServletRequest request) {
         Map<String, String> invalidParams = errorMessageHandler.getErrorMap(ex.getBindingResult());
         String path = request.getRequestURI();
         log.warn(ERR_PFX + "BindException with invalidParams {} at request {}", invalidParams, path);
+        countError(BAD_REQUEST);
         return createParamsProblemDetail(ex, path, BAD_REQUEST, "BindException", Map.of("invalid_params", invalidParams));
     }
 
+    // Unique constraints are checked by DB on write (no pre-select), report known ones as invalid field
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ProblemDetail dataIntegrityViolationException(DataIntegrityViolationException ex, HttpServletRequest request) {
+        String rootMsg = NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+        if (rootMsg != null) {
+            String lowerCaseMsg = rootMsg.toLowerCase();
+            for (Map.Entry<String, Map.Entry<String, String>> entry : CONSTRAINTS_MAP.entrySet()) {
+                if (lowerCaseMsg.contains(entry.getKey())) {
+                    Map<String, String> invalidParams = Map.ofEntries(entry.getValue());
+                    String path = request.getRequestURI();
+                    log.warn(ERR_PFX + "DataIntegrityViolation with invalidParams {} at request {}", invalidParams, path);
+                    countError(BAD_REQUEST);
+                    return createParamsProblemDetail(ex, path, BAD_REQUEST, "DataIntegrityViolation", Map.of("invalid_params", invalidParams));
+                }
+            }
+        }
+        return exception(ex, request);
+    }
+
     //   https://howtodoinjava.com/spring-mvc/spring-problemdetail-errorresponse/#5-adding-problemdetail-to-custom-exceptions
     @ExceptionHandler(Exception.class)
     public ProblemDetail exception(Throwable ex, HttpServletRequest request) {
@@ -41,10 +67,12 @@ public class RestExceptionHandler extends BasicExceptionHandler {
 
     // Process error from ErrorController
     ProblemDetail processError(@Nullable Throwable th, String path, @Nullable Integer intStatus, String msg) {
-        return super.processError(th, path, msg, this::createProblemDetail, () -> {
+        return super.processError(th, path, intStatus, msg, this::createProblemDetail, () -> {
             HttpStatus status = BasicExceptionHandler.getStatus(intStatus);
+            ErrorType type = ErrorType.of(status);
+            countError(type);
             ProblemDetail pd = ProblemDetail.forStatusAndDetail(status, msg);
-            pd.setTitle(ErrorType.of(status).title);
+            pd.setTitle(type.title);
             pd.setInstance(URI.create(path));
             return pd;
         });
@@ -55,11 +83,12 @@ public class RestExceptionHandler extends BasicExceptionHandler {
         return createParamsProblemDetail(ex, path, type, defaultDetail, Map.of());
     }
 
+    //  status and title are taken from ErrorType: no ErrorResponse building and MessageSource lookups
+    //  of "problemDetail.*" codes per error (there are no such messages)
     private ProblemDetail createParamsProblemDetail(Throwable ex, String path, ErrorType type, String defaultDetail, @NonNull Map<String, Object> additionalParams) {
-        ErrorResponse.Builder builder = ErrorResponse.builder(ex, type.status, defaultDetail);
-        ProblemDetail pd = builder
-                .title(type.title).instance(URI.create(path))
-                .build().updateAndGetBody(errorMessageHandler.getMessageSource(), LocaleContextHolder.getLocale());
+        ProblemDetail pd = ProblemDetail.forStatusAndDetail(type.status, defaultDetail);
+        pd.setTitle(type.title);
+        pd.setInstance(URI.create(path));
         additionalParams.forEach(pd::setProperty);
         return pd;
     }
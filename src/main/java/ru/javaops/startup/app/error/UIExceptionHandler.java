@@ -26,6 +26,7 @@ public class UIExceptionHandler extends BasicExceptionHandler {
         List<String> errorList = errorMessageHandler.getErrorList(ex.getBindingResult());
         String path = request.getRequestURI();
         log.warn(ERR_PFX + "BindException {} at request {}", errorList, path);
+        countError(BAD_REQUEST);
         return getExceptionView(ex, path, BAD_REQUEST, String.join("<br>", errorList));
     }
 
@@ -36,9 +37,11 @@ public class UIExceptionHandler extends BasicExceptionHandler {
 
     // Process error from ErrorController
     ModelAndView processError(@Nullable Throwable th, String path, @Nullable Integer intStatus, String msg) {
-        return super.processError(th, path, msg, UIExceptionHandler::getExceptionView, () -> {
+        return super.processError(th, path, intStatus, msg, UIExceptionHandler::getExceptionView, () -> {
             HttpStatus status = getStatus(intStatus);
-            return getView(th, status, ErrorType.of(status).title, msg);
+            ErrorType type = ErrorType.of(status);
+            countError(type);
+            return getView(th, status, type.title, msg);
         });
     }
 
@@ -10,6 +10,7 @@ public enum ErrorType {
     BAD_REQUEST("Bad request", HttpStatus.UNPROCESSABLE_ENTITY),
     DATA_CONFLICT("DataBase conflict", HttpStatus.CONFLICT),
     NOT_FOUND("Resource not found", HttpStatus.NOT_FOUND),
+    PRECONDITION_FAILED("Precondition failed", HttpStatus.PRECONDITION_FAILED),
     AUTH_ERROR("Authorization error", HttpStatus.FORBIDDEN),
     UNAUTHORIZED("Request unauthorized", HttpStatus.UNAUTHORIZED),
     FORBIDDEN("Request forbidden", HttpStatus.FORBIDDEN);
@@ -0,0 +1,9 @@
+package ru.javaops.startup.common.error;
+
+import static ru.javaops.startup.common.error.ErrorType.PRECONDITION_FAILED;
+
+public class PreconditionFailedException extends AppException {
+    public PreconditionFailedException(String msg) {
+        super(msg, PRECONDITION_FAILED);
+    }
+}
@@ -1,10 +1,14 @@
 package ru.javaops.startup.common.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import lombok.*;
 import ru.javaops.startup.common.HasId;
 
+import java.time.Instant;
+
 import static ru.javaops.startup.common.util.Util.getEffectiveClass;
 
 @MappedSuperclass
@@ -13,14 +17,35 @@ import static ru.javaops.startup.common.util.Util.getEffectiveClass;
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-@AllArgsConstructor(access = AccessLevel.PROTECTED)
 public abstract class BaseEntity implements HasId {
+    public static final int START_SEQ = 1000;
 
+    //  https://vladmihalcea.com/hibernate-hidden-gem-the-pooled-lo-optimizer/
+    //  unlike IDENTITY, ids are known before insert, so inserts go by jdbc.batch_size
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SequenceGenerator(name = "global_seq", sequenceName = "global_seq", allocationSize = 20, initialValue = START_SEQ)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "global_seq")
     @Schema(accessMode = Schema.AccessMode.READ_ONLY) // https://stackoverflow.com/a/28025008/548473
     protected Integer id;
 
+    //  optimistic locking: stale update fails instead of overwriting concurrent one; also source of ETag.
+    //  Not taken from json, client passes it back by If-Match header
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "int default 0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    protected int version;
+
+    //  Maintained by DB on insert and on any update, bulk ones included: watermark of incremental sync.
+    //  Not refreshed in entity after write, so not in json
+    @Column(name = "updated", insertable = false, updatable = false,
+            columnDefinition = "timestamp with time zone default current_timestamp on update current_timestamp")
+    @JsonIgnore
+    protected Instant updated;
+
+    protected BaseEntity(Integer id) {
+        this.id = id;
+    }
+
     //  https://jpa-buddy.com/blog/hopefully-the-final-article-about-equals-and-hashcode-for-jpa-entities-with-db-generated-ids/
     @Override
     public boolean equals(Object o) {
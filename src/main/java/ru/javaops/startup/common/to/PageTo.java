@@ -0,0 +1,16 @@
+package ru.javaops.startup.common.to;
+
+import lombok.Value;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+// Keyset (seek) page: https://use-the-index-luke.com/no-offset
+@Value
+public class PageTo<T> {
+    List<T> content;
+
+    // opaque continuation token for the next page, null for the last page
+    @Nullable
+    String next;
+}
@@ -0,0 +1,66 @@
+package ru.javaops.startup.common.util;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.lang.Nullable;
+import ru.javaops.startup.common.HasId;
+import ru.javaops.startup.common.error.PreconditionFailedException;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.function.ToIntFunction;
+
+//  https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/ETag
+//  ETags from entity versions: resource is changed if and only if its version is changed.
+//  Validators are weak: Tomcat doesn't gzip responses with strong ETag (byte-identical representation),
+//  version identifies the state exactly, weak is only about content encoding
+@UtilityClass
+public class ETagUtil {
+
+    private static final String WEAK_PREFIX = "W/";
+
+    public static String of(int version) {
+        return WEAK_PREFIX + "\"" + version + "\"";
+    }
+
+    //  collection changes on any added, deleted or modified element.
+    //  SHA-256 of (id, version) sequence: no false 304 by hash collision, as with 32-bit hash
+    public static <T extends HasId> String of(Collection<T> items, ToIntFunction<T> version) {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        for (T item : items) {
+            digest.update(buffer.clear().putInt(item.id()).putInt(version.applyAsInt(item)).flip());
+        }
+        // 128 bits are enough for validator
+        return WEAK_PREFIX + "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 16)) + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //  expected version from If-Match header, null if any version matches (no header or "*").
+    //  If-Match uses strong comparison (https://www.rfc-editor.org/rfc/rfc9110#section-13.1.1):
+    //  weak W/"version" never matches, only strong "version" does
+    @Nullable
+    public static Integer parseIfMatch(@Nullable String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.strip();
+        if (etag.length() > 2 && etag.charAt(0) == '"' && etag.charAt(etag.length() - 1) == '"') {
+            try {
+                return Integer.valueOf(etag.substring(1, etag.length() - 1));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        throw new PreconditionFailedException("If-Match " + ifMatch + " doesn't match current ETag");
+    }
+}
@@ -1,12 +1,20 @@
 package ru.javaops.startup.common.util;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.experimental.UtilityClass;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @UtilityClass
 public class JsonUtil {
@@ -25,6 +33,11 @@ public class JsonUtil {
         }
     }
 
+    // lazy reading of root-level JSON array or sequence of values (NDJSON), must be closed
+    public static <T> MappingIterator<T> readValues(InputStream in, Class<T> clazz) throws IOException {
+        return mapper.readerFor(clazz).readValues(in);
+    }
+
     public static <T> T readValue(String json, Class<T> clazz) {
         try {
             return mapper.readValue(json, clazz);
@@ -40,4 +53,20 @@ public class JsonUtil {
             throw new IllegalStateException("Invalid write to JSON:\n'" + obj + "'", e);
         }
     }
+
+    //  https://github.com/ndjson/ndjson-spec: one JSON value per line, values are written as they come from stream
+    public static <T> void writeValues(OutputStream out, Stream<T> values) {
+        // no flush per value: let generator and servlet buffers fill up
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try {
+            JsonGenerator generator = mapper.createGenerator(out);
+            for (Iterator<T> it = values.iterator(); it.hasNext(); ) {
+                writer.writeValue(generator, it.next());
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid write stream to JSON", e);
+        }
+    }
 }
\ No newline at end of file
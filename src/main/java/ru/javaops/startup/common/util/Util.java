@@ -3,10 +3,35 @@ package ru.javaops.startup.common.util;
 import lombok.experimental.UtilityClass;
 import org.hibernate.proxy.HibernateProxy;
 
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 @UtilityClass
 public class Util {
 
     public static Class<?> getEffectiveClass(Object o) {
         return o instanceof HibernateProxy ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass() : o.getClass();
     }
+
+    //  lazily groups elements into lists of size (the last could be smaller), source must be closed by caller
+    public static <T> Stream<List<T>> chunked(Stream<T> stream, int size) {
+        Iterator<T> it = stream.iterator();
+        Iterator<List<T>> chunks = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public List<T> next() {
+                List<T> chunk = new ArrayList<>(size);
+                while (chunk.size() < size && it.hasNext()) {
+                    chunk.add(it.next());
+                }
+                return chunk;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false);
+    }
 }
\ No newline at end of file
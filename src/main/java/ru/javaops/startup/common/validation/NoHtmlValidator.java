@@ -8,6 +8,18 @@ import org.jsoup.safety.Safelist;
 public class NoHtmlValidator implements ConstraintValidator<NoHtml, String> {
     @Override
     public boolean isValid(String value, ConstraintValidatorContext ctx) {
-        return value == null || Jsoup.isValid(value, Safelist.none());
+        return value == null || isPlainText(value) || Jsoup.isValid(value, Safelist.none());
+    }
+
+    //  Jsoup tokenizer leaves text state only on '<' (tag), '&' (character reference) and reports '\0' as parse error:
+    //  value without them is valid without building DOM
+    static boolean isPlainText(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '<' || c == '&' || c == '\0') {
+                return false;
+            }
+        }
+        return true;
     }
 }
@@ -2,10 +2,37 @@ package ru.javaops.startup.user.model;
 
 import org.springframework.security.core.GrantedAuthority;
 
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum Role implements GrantedAuthority {
     USER,
     ADMIN;
 
+    //  compact EnumSet<Role> representation: bit per role ordinal
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public static int toMask(Collection<Role> roles) {
+        int mask = 0;
+        for (Role role : roles) {
+            mask |= role.bit();
+        }
+        return mask;
+    }
+
+    public static Set<Role> fromMask(int mask) {
+        Set<Role> roles = EnumSet.noneOf(Role.class);
+        for (Role role : values()) {
+            if ((mask & role.bit()) != 0) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+
     @Override
     public String getAuthority() {
         //   https://stackoverflow.com/a/19542316/548473
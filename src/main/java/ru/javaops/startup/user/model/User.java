@@ -1,5 +1,6 @@
 package ru.javaops.startup.user.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
@@ -17,25 +18,59 @@ import ru.javaops.startup.common.validation.NoHtml;
 import java.util.*;
 
 @Entity
-@Table(name = "users")
+// index for keyset pagination in getAll sort order
+@Table(name = "users", indexes = {
+        @Index(name = "users_name_email_id_idx", columnList = "name, email, id"),
+        @Index(name = User.EMAIL_UNIQUE_IDX, columnList = "email_lower", unique = true),
+        // indexes for search (see UserSearchService)
+        @Index(name = "users_name_lower_idx", columnList = "name_lower"),
+        @Index(name = "users_last_name_lower_idx", columnList = "last_name_lower"),
+        @Index(name = "users_registered_idx", columnList = "registered"),
+        // incremental sync (see UserSyncService)
+        @Index(name = "users_updated_id_idx", columnList = "updated, id")})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class User extends NamedEntity implements HasIdAndEmail {
 // No session, no needs Serializable
+    public static final String EMAIL_UNIQUE_IDX = "users_email_lower_idx";
 
-    @Column(name = "email", nullable = false, unique = true)
+    @Column(name = "email", nullable = false)
     @Email
     @NotBlank
     @Size(max = 64)
     @NoHtml   // https://stackoverflow.com/questions/17480809
     private String email;
 
+    // Maintained by DB, indexed for case-insensitive lookup (LOWER(email) can't use index on email)
+    // and case-insensitive uniqueness of email
+    @Column(name = "email_lower", insertable = false, updatable = false,
+            columnDefinition = "varchar(64) generated always as (lower(email))")
+    @JsonIgnore
+    private String emailLower;
+
+    // encoded by PasswordEncoder, null for user without login
+    @Column(name = "password", nullable = true, length = 128)
+    @Size(min = 5, max = 72) // bcrypt uses first 72 bytes only
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private String password;
+
     @Column(name = "last_name", nullable = true)
     @Size(max = 32)
     @NoHtml
     private String lastName;
 
+    // Maintained by DB for case-insensitive prefix search by index
+    @Column(name = "name_lower", insertable = false, updatable = false,
+            columnDefinition = "varchar(255) generated always as (lower(name))")
+    @JsonIgnore
+    private String nameLower;
+
+    @Column(name = "last_name_lower", insertable = false, updatable = false,
+            columnDefinition = "varchar(255) generated always as (lower(last_name))")
+    @JsonIgnore
+    private String lastNameLower;
+
     @Column(name = "enabled", nullable = false, columnDefinition = "bool default true")
     private boolean enabled = true;
 
@@ -73,6 +108,20 @@ public class User extends NamedEntity implements HasIdAndEmail {
         this.roles = roles.isEmpty() ? EnumSet.noneOf(Role.class) : EnumSet.copyOf(roles);
     }
 
+    //  update of managed entity by data from json: roles are changed in place (only changed rows of user_role are written),
+    //  password is kept if not given
+    public void update(User u) {
+        this.name = u.name;
+        this.email = u.email;
+        this.lastName = u.lastName;
+        this.enabled = u.enabled;
+        if (u.password != null) {
+            this.password = u.password;
+        }
+        roles.retainAll(u.roles);
+        roles.addAll(u.roles);
+    }
+
     public boolean hasRole(Role role) {
         return roles.contains(role);
     }
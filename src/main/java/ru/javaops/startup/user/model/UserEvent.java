@@ -0,0 +1,78 @@
+package ru.javaops.startup.user.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.SQLUpdate;
+import org.springframework.lang.Nullable;
+import ru.javaops.startup.common.util.JsonUtil;
+
+import java.time.Instant;
+
+/**
+ * Transactional outbox: event is inserted in the same transaction as user modification,
+ * seq is assigned by UserEventPublisher in commit order of publishing (see UserEventPublisher).
+ */
+@Entity
+@Table(name = "user_event", indexes = @Index(name = "user_event_seq_idx", columnList = "seq", unique = true))
+//  seq is the only updatable column and is assigned once: event published concurrently (by other node)
+//  is not updated and its batch fails as stale (see UserEventPublisher)
+@SQLUpdate(sql = "UPDATE user_event SET seq = ? WHERE id = ? AND seq IS NULL")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class UserEvent {
+
+    public enum Type {CREATED, UPDATED, ENABLED, DISABLED, DELETED}
+
+    //  pooled-lo as global_seq (BaseEntity): events of bulk modifications are inserted by jdbc batches
+    @Id
+    @SequenceGenerator(name = "user_event_id_seq", sequenceName = "user_event_id_seq", allocationSize = 20)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_event_id_seq")
+    @JsonIgnore
+    private Long id;
+
+    //  null until published
+    @Column(name = "seq")
+    @Setter
+    private Long seq;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private int userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 16, updatable = false)
+    private Type type;
+
+    @Column(name = "created", nullable = false, updatable = false)
+    private Instant created;
+
+    //  user json for CREATED and UPDATED, consumers don't need to request it
+    @Column(name = "payload", length = 4096, updatable = false)
+    @JsonRawValue
+    @Nullable
+    private String payload;
+
+    public UserEvent(int userId, Type type, @Nullable String payload) {
+        this.userId = userId;
+        this.type = type;
+        this.created = Instant.now();
+        this.payload = payload;
+    }
+
+    public static UserEvent of(Type type, User user) {
+        return new UserEvent(user.id(), type, JsonUtil.writeValue(user));
+    }
+
+    public static UserEvent of(Type type, int userId) {
+        return new UserEvent(userId, type, null);
+    }
+
+    @Override
+    public String toString() {
+        return "UserEvent:" + seq + '[' + type + ' ' + userId + ']';
+    }
+}
@@ -0,0 +1,25 @@
+package ru.javaops.startup.user.model;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+//  Deleted user for incremental sync: inserted by UserRepository.deleteExisted, purged after retention
+@Entity
+@Table(name = "user_tombstone", indexes = @Index(name = "user_tombstone_deleted_id_idx", columnList = "deleted, id"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class UserTombstone {
+
+    //  id of deleted user
+    @Id
+    private Integer id;
+
+    //  same clock as users.updated
+    @Column(name = "deleted", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "timestamp with time zone default current_timestamp")
+    private Instant deleted;
+}
@@ -0,0 +1,32 @@
+package ru.javaops.startup.user.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.javaops.startup.user.model.UserEvent;
+
+import java.time.Instant;
+import java.util.List;
+
+@Transactional(readOnly = true)
+public interface UserEventRepository extends JpaRepository<UserEvent, Long> {
+
+    @Query("SELECT e FROM UserEvent e WHERE e.seq IS NULL ORDER BY e.id")
+    List<UserEvent> findUnpublished(Limit limit);
+
+    @Query("SELECT COALESCE(MAX(e.seq), 0) FROM UserEvent e")
+    long findMaxSeq();
+
+    //  range scan by unique index on seq
+    @Query("SELECT e FROM UserEvent e WHERE e.seq > :seq ORDER BY e.seq")
+    List<UserEvent> findPublishedAfter(long seq, Limit limit);
+
+    //  highest published event is kept: seq continues from it (see UserEventPublisher), not from 1 after purge of all,
+    //  so consumers resuming by seq don't skip new events
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UserEvent e WHERE e.seq IS NOT NULL AND e.created < :before AND e.seq < (SELECT MAX(m.seq) FROM UserEvent m)")
+    int deletePublishedBefore(Instant before);
+}
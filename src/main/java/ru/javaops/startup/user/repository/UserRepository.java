@@ -1,19 +1,255 @@
 package ru.javaops.startup.user.repository;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.transaction.annotation.Transactional;
 import ru.javaops.startup.common.BaseRepository;
 import ru.javaops.startup.common.error.NotFoundException;
+import ru.javaops.startup.common.error.PreconditionFailedException;
+import ru.javaops.startup.user.model.Role;
 import ru.javaops.startup.user.model.User;
+import ru.javaops.startup.user.to.UserView;
 
-import java.util.Optional;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+//  Cached are immutable views, entities are not cached
 @Transactional(readOnly = true)
+@CacheConfig(cacheNames = UserRepository.USERS_CACHE)
 public interface UserRepository extends BaseRepository<User> {
-    @Query("SELECT u FROM User u WHERE LOWER(u.email) = LOWER(:email)")
+    String USERS_CACHE = "users";
+    String USERS_BY_EMAIL_CACHE = "usersByEmail";
+    //  verified credentials (see CachingAuthenticationProvider): any modification could disable user or change password
+    String CREDENTIALS_CACHE = "credentials";
+
+    //  roles are aggregated in the same query (no second select of user_role per user)
+    String SELECT_VIEW = """
+            SELECT new ru.javaops.startup.user.to.UserView(u.id, u.name, u.email, u.lastName, u.enabled, u.registered, u.version,
+                   listagg(str(r), ',')) FROM User u LEFT JOIN u.roles r""";
+    String GROUP_BY_VIEW = " GROUP BY u.id, u.name, u.email, u.lastName, u.enabled, u.registered, u.version";
+
+    //  for list path: roles are loaded by withRoles (join + group by could not stop at the page limit)
+    String SELECT_VIEW_WITHOUT_ROLES = """
+            SELECT new ru.javaops.startup.user.to.UserView(u.id, u.name, u.email, u.lastName, u.enabled, u.registered, u.version, 0)
+              FROM User u
+            """;
+
+    @Query(SELECT_VIEW + " WHERE u.id=:id" + GROUP_BY_VIEW)
+    Optional<UserView> findViewById(int id);
+
+    // default methods call target directly, bypassing proxy: they are cached by themselves
+    @Cacheable(key = "#p0")
+    default UserView getExistedView(int id) {
+        return findViewById(id).orElseThrow(() -> new NotFoundException("Entity with id=" + id + " not found"));
+    }
+
+    @Query(SELECT_VIEW + " WHERE u.emailLower = LOWER(:email)" + GROUP_BY_VIEW)
+    Optional<UserView> findViewByEmailIgnoreCase(String email);
+
+    @Cacheable(cacheNames = USERS_BY_EMAIL_CACHE, key = "#p0.toLowerCase()")
+    default UserView getExistedViewByEmail(String email) {
+        return findViewByEmailIgnoreCase(email).orElseThrow(() -> new NotFoundException("User with email=" + email + " not found"));
+    }
+
+    @Query(SELECT_VIEW + GROUP_BY_VIEW + " ORDER BY u.name, u.email, u.id")
+    List<UserView> findAllViews();
+
+    @Query("SELECT u FROM User u WHERE u.emailLower = LOWER(:email)")
     Optional<User> findByEmailIgnoreCase(String email);
 
     default User getExistedByEmail(String email) {
         return findByEmailIgnoreCase(email).orElseThrow(() -> new NotFoundException("User with email=" + email + " not found"));
     }
-}
\ No newline at end of file
+
+    // email could be changed: previous one is unknown here
+    @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(key = "#p0.id", condition = "#p0.id != null"),
+            @CacheEvict(cacheNames = {USERS_BY_EMAIL_CACHE, CREDENTIALS_CACHE}, allEntries = true)
+    })
+    <S extends User> S save(S user);
+
+    @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(key = "#p0.id", condition = "#p0.id != null"),
+            @CacheEvict(cacheNames = {USERS_BY_EMAIL_CACHE, CREDENTIALS_CACHE}, allEntries = true)
+    })
+    <S extends User> S saveAndFlush(S user);
+
+    //  bulk import
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = {USERS_CACHE, USERS_BY_EMAIL_CACHE, CREDENTIALS_CACHE}, allEntries = true)
+    <S extends User> List<S> saveAll(Iterable<S> users);
+
+    @Override
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id=:id")
+    @Caching(evict = {
+            @CacheEvict(key = "#p0"),
+            @CacheEvict(cacheNames = {USERS_BY_EMAIL_CACHE, CREDENTIALS_CACHE}, allEntries = true)
+    })
+    int delete(int id);
+
+    @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(key = "#p0"),
+            @CacheEvict(cacheNames = {USERS_BY_EMAIL_CACHE, CREDENTIALS_CACHE}, allEntries = true)
+    })
+    default void deleteExisted(int id) {
+        BaseRepository.super.deleteExisted(id);
+        insertTombstone(id);
+    }
+
+    //  deleted user for incremental sync (see findChangedAfter)
+    @Transactional
+    @Modifying
+    @Query("INSERT INTO UserTombstone (id) VALUES (:id)")
+    void insertTombstone(int id);
+
+    @Query("SELECT u.version FROM User u WHERE u.id=:id")
+    Optional<Integer> findVersion(int id);
+
+    default int getExistedVersion(int id) {
+        return findVersion(id).orElseThrow(() -> new NotFoundException("Entity with id=" + id + " not found"));
+    }
+
+    //  versioned modifications: 0 rows means user is not found or modified since the version
+    default void checkVersionedModified(int id, int version, int modified) {
+        if (modified == 0) {
+            getExistedVersion(id);
+            throw new PreconditionFailedException("Entity with id=" + id + " was modified, its version is not " + version);
+        }
+    }
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id=:id AND u.version=:version")
+    @Caching(evict = {
+            @CacheEvict(key = "#p0"),
+            @CacheEvict(cacheNames = {USERS_BY_EMAIL_CACHE, CREDENTIALS_CACHE}, allEntries = true)
+    })
+    int delete(int id, int version);
+
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(key = "#p0"),
+            @CacheEvict(cacheNames = {USERS_BY_EMAIL_CACHE, CREDENTIALS_CACHE}, allEntries = true)
+    })
+    default void deleteExisted(int id, int version) {
+        checkVersionedModified(id, version, delete(id, version));
+        insertTombstone(id);
+    }
+
+    // single statement, no select of user with roles. Bulk update doesn't increment version by itself
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.enabled=:enabled, u.version=u.version+1 WHERE u.id=:id")
+    @Caching(evict = {
+            @CacheEvict(key = "#p0"),
+            @CacheEvict(cacheNames = {USERS_BY_EMAIL_CACHE, CREDENTIALS_CACHE}, allEntries = true)
+    })
+    int enable(int id, boolean enabled);
+
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(key = "#p0"),
+            @CacheEvict(cacheNames = {USERS_BY_EMAIL_CACHE, CREDENTIALS_CACHE}, allEntries = true)
+    })
+    default void enableExisted(int id, boolean enabled) {
+        if (enable(id, enabled) == 0) {
+            throw new NotFoundException("Entity with id=" + id + " not found");
+        }
+    }
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.enabled=:enabled, u.version=u.version+1 WHERE u.id=:id AND u.version=:version")
+    @Caching(evict = {
+            @CacheEvict(key = "#p0"),
+            @CacheEvict(cacheNames = {USERS_BY_EMAIL_CACHE, CREDENTIALS_CACHE}, allEntries = true)
+    })
+    int enable(int id, boolean enabled, int version);
+
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(key = "#p0"),
+            @CacheEvict(cacheNames = {USERS_BY_EMAIL_CACHE, CREDENTIALS_CACHE}, allEntries = true)
+    })
+    default void enableExisted(int id, boolean enabled, int version) {
+        checkVersionedModified(id, version, enable(id, enabled, version));
+    }
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.enabled=:enabled, u.version=u.version+1 WHERE u.id IN :ids")
+    @CacheEvict(cacheNames = {USERS_CACHE, USERS_BY_EMAIL_CACHE, CREDENTIALS_CACHE}, allEntries = true)
+    int enableAll(Set<Integer> ids, boolean enabled);
+
+    //  all or nothing: any missed id rolls back the whole update
+    @Transactional
+    @CacheEvict(cacheNames = {USERS_CACHE, USERS_BY_EMAIL_CACHE, CREDENTIALS_CACHE}, allEntries = true)
+    default void enableAllExisted(Set<Integer> ids, boolean enabled) {
+        if (enableAll(ids, enabled) != ids.size()) {
+            throw new NotFoundException("Some of entities with ids=" + ids + " not found");
+        }
+    }
+
+    // emails must be lower-cased
+    @Query("SELECT u.emailLower FROM User u WHERE u.emailLower IN :emails")
+    Set<String> findExistedEmails(Collection<String> emails);
+
+    @Query(SELECT_VIEW_WITHOUT_ROLES + " ORDER BY u.name, u.email, u.id")
+    List<UserView> findFirstPage(Limit limit);
+
+    //  https://use-the-index-luke.com/sql/partial-results/fetch-next-page
+    //  redundant "u.name >= :name" lets the index on (name, email, id) be used as range scan
+    @Query(SELECT_VIEW_WITHOUT_ROLES + """
+             WHERE u.name >= :name AND (u.name > :name OR u.email > :email OR (u.email = :email AND u.id > :id))
+             ORDER BY u.name, u.email, u.id""")
+    List<UserView> findPageAfter(String name, String email, int id, Limit limit);
+
+    // must be consumed inside transaction and closed, roles are not loaded
+    @Query(SELECT_VIEW_WITHOUT_ROLES + " ORDER BY u.name, u.email, u.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<UserView> streamAll();
+
+    //  incremental sync: ids and update times in (updated, id) order, range scan by index on (updated, id)
+    @Query("""
+            SELECT u.id, u.updated FROM User u
+             WHERE u.updated >= :updated AND (u.updated > :updated OR u.id > :id)
+             ORDER BY u.updated, u.id""")
+    List<Object[]> findChangedAfter(Instant updated, int id, Limit limit);
+
+    @Query(SELECT_VIEW_WITHOUT_ROLES + " WHERE u.id IN :ids ORDER BY u.id")
+    List<UserView> findViews(Collection<Integer> ids);
+
+    @Query("SELECT u.id, r FROM User u JOIN u.roles r WHERE u.id IN :ids")
+    List<Object[]> findRoles(Collection<Integer> ids);
+
+    //  roles for list of views by one IN-query instead of select per user
+    default List<UserView> withRoles(List<UserView> views) {
+        if (views.isEmpty()) {
+            return views;
+        }
+        Map<Integer, Integer> masks = new HashMap<>();
+        for (Object[] row : findRoles(views.stream().map(UserView::getId).toList())) {
+            masks.merge((Integer) row[0], ((Role) row[1]).bit(), (m1, m2) -> m1 | m2);
+        }
+        return views.stream().map(v -> v.withRoleMask(masks.getOrDefault(v.getId(), 0))).toList();
+    }
+}
@@ -0,0 +1,27 @@
+package ru.javaops.startup.user.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.javaops.startup.user.model.UserTombstone;
+
+import java.time.Instant;
+import java.util.List;
+
+@Transactional(readOnly = true)
+public interface UserTombstoneRepository extends JpaRepository<UserTombstone, Integer> {
+
+    //  keyset in (deleted, id) order, as UserRepository.findChangedAfter
+    @Query("""
+            SELECT t FROM UserTombstone t
+             WHERE t.deleted >= :deleted AND (t.deleted > :deleted OR t.id > :id)
+             ORDER BY t.deleted, t.id""")
+    List<UserTombstone> findDeletedAfter(Instant deleted, int id, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UserTombstone t WHERE t.deleted < :before")
+    int deleteBefore(Instant before);
+}
@@ -0,0 +1,45 @@
+package ru.javaops.startup.user.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.javaops.startup.common.util.JsonUtil;
+import ru.javaops.startup.user.model.UserEvent;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+
+//  Events as NDJSON appended to app.events.file: local replacement of message broker
+@Component
+@ConditionalOnProperty("app.events.file")
+@Slf4j
+public class FileUserEventSink implements UserEventSink {
+    private final Path file;
+
+    public FileUserEventSink(@Value("${app.events.file}") Path file) {
+        this.file = file;
+        log.info("Publish user events to {}", file.toAbsolutePath());
+    }
+
+    @Override
+    public void publish(List<UserEvent> events) {
+        // one write per batch
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, CREATE, APPEND)) {
+            for (UserEvent event : events) {
+                writer.write(JsonUtil.writeValue(event));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ru.javaops.startup.user.service;
+
+import org.springframework.stereotype.Component;
+import ru.javaops.startup.user.model.UserEvent;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+//  In-memory fan-out of events published at this node (wake-up of SSE streams, tests)
+@Component
+public class UserEventBroker implements UserEventSink {
+    private final List<Consumer<List<UserEvent>>> subscribers = new CopyOnWriteArrayList<>();
+
+    //  subscriber is called in publisher thread: it must not block
+    public Runnable subscribe(Consumer<List<UserEvent>> subscriber) {
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    @Override
+    public void publish(List<UserEvent> events) {
+        subscribers.forEach(subscriber -> subscriber.accept(events));
+    }
+}
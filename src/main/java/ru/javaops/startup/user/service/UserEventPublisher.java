@@ -0,0 +1,102 @@
+package ru.javaops.startup.user.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.javaops.startup.user.model.UserEvent;
+import ru.javaops.startup.user.repository.UserEventRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Drains outbox by batches: assigns seq to unpublished events (single UPDATE batch per batch of events)
+ * and hands them to sinks after commit.
+ * Events are durable with modification itself; delivery to sink is at most once, consumers catch up
+ * by seq from outbox (see AdminUserController.events).
+ * <p>
+ * Topology: one publisher per DB, app.events.publisher=false at other nodes (their SSE clients tail outbox, see UserEventStream).
+ * Seq is MAX+1: concurrent publisher by misconfiguration fails on unique seq or on event already published
+ * (see UserEvent) and skips its round, so seq order is commit order anyway and no event gets two seqs.
+ */
+@Component
+@ConditionalOnProperty(name = "app.events.publisher", matchIfMissing = true)
+@Slf4j
+public class UserEventPublisher {
+    private final UserEventRepository repository;
+    private final List<UserEventSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+
+    public UserEventPublisher(UserEventRepository repository, List<UserEventSink> sinks, TransactionTemplate transactionTemplate,
+                              @Value("${app.events.batch-size:500}") int batchSize,
+                              @Value("${app.events.retention:7d}") Duration retention) {
+        this.repository = repository;
+        this.sinks = sinks;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+
+    //  number of published events
+    @Scheduled(fixedDelayString = "${app.events.publish-delay-ms:200}")
+    public synchronized int publish() {
+        int published = 0;
+        List<UserEvent> batch;
+        do {
+            try {
+                batch = transactionTemplate.execute(status -> assignSeq());
+            } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+                log.warn("Seq conflict: events are published by another node, check app.events.publisher");
+                break;
+            }
+            if (!batch.isEmpty()) {
+                log.debug("publish {} events up to {}", batch.size(), batch.getLast());
+                for (UserEventSink sink : sinks) {
+                    try {
+                        sink.publish(batch);
+                    } catch (RuntimeException e) {
+                        log.error("Sink {} failed to publish events up to {}", sink.getClass().getSimpleName(), batch.getLast(), e);
+                    }
+                }
+                published += batch.size();
+            }
+        } while (batch.size() == batchSize);
+        return published;
+    }
+
+    private List<UserEvent> assignSeq() {
+        List<UserEvent> batch = repository.findUnpublished(Limit.of(batchSize));
+        if (!batch.isEmpty()) {
+            long seq = repository.findMaxSeq();
+            for (UserEvent event : batch) {
+                event.setSeq(++seq);
+            }
+        }
+        // updates of managed events are flushed at commit by jdbc batches
+        return batch;
+    }
+
+    //  consumers lagging behind retention have to resync by full list
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT1M")
+    public void purge() {
+        purge(Instant.now().minus(retention));
+    }
+
+    //  number of deleted events
+    public int purge(Instant before) {
+        int deleted = repository.deletePublishedBefore(before);
+        if (deleted > 0) {
+            log.info("Purged {} published user events created before {}", deleted, before);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,11 @@
+package ru.javaops.startup.user.service;
+
+import ru.javaops.startup.user.model.UserEvent;
+
+import java.util.List;
+
+//  Destination of published events (message broker, file, in-memory subscribers).
+//  Batch is ordered by seq and is called after commit of its seq assignment
+public interface UserEventSink {
+    void publish(List<UserEvent> events);
+}
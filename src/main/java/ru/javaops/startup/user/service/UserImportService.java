@@ -0,0 +1,177 @@
+package ru.javaops.startup.user.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.javaops.startup.common.error.ErrorType;
+import ru.javaops.startup.common.util.JsonUtil;
+import ru.javaops.startup.user.model.User;
+import ru.javaops.startup.user.model.UserEvent;
+import ru.javaops.startup.user.repository.UserEventRepository;
+import ru.javaops.startup.user.repository.UserRepository;
+import ru.javaops.startup.user.to.ImportResultTo;
+import ru.javaops.startup.user.to.ImportResultTo.RowResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+
+import static ru.javaops.startup.app.error.RestExceptionHandler.EXCEPTION_DUPLICATE_EMAIL;
+
+/**
+ * Bulk import: body (JSON array or NDJSON) is parsed as stream and processed by chunks.
+ * Each chunk is validated, checked for duplicate emails by single query and saved in own transaction,
+ * so rows of failed chunk don't affect already imported ones.
+ * Plain passwords are encoded by bcrypt (~100 ms of CPU each) in parallel by all cores;
+ * migration from other system imports bcrypt hashes as is (encodedPasswords), without encoding.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserImportService {
+    public static final int CHUNK_SIZE = 500;
+    //  encoded by DelegatingPasswordEncoder (see SecurityConfig), as stored in users.password
+    static final Pattern BCRYPT_PASSWORD = Pattern.compile("\\{bcrypt}\\$2[aby]?\\$\\d\\d\\$[./A-Za-z0-9]{53}");
+
+    private final UserRepository repository;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final UserEventRepository eventRepository;
+
+    //  bcrypt is CPU bound: bounded by cores for all concurrent imports
+    private final ExecutorService passwordEncoders = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+            Thread.ofPlatform().name("password-encoder-", 0).daemon().factory());
+
+    @PreDestroy
+    void shutdown() {
+        passwordEncoders.shutdownNow();
+    }
+
+    public ImportResultTo importUsers(InputStream in, boolean encodedPasswords) {
+        long start = System.nanoTime();
+        List<RowResult> results = new ArrayList<>();
+        Map<Integer, User> chunk = new LinkedHashMap<>(CHUNK_SIZE * 2);
+        int row = 0;
+        try (MappingIterator<User> it = JsonUtil.readValues(in, User.class)) {
+            while (it.hasNextValue()) {
+                chunk.put(row++, it.nextValue());
+                if (chunk.size() == CHUNK_SIZE) {
+                    processChunk(chunk, encodedPasswords, results);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            // malformed stream can't be resynchronized: report and stop
+            log.warn("Import stopped at row {}: {}", row, e.getMessage());
+            results.add(new RowResult(row, null, List.of("Invalid JSON: " + e.getMessage())));
+        }
+        processChunk(chunk, encodedPasswords, results);
+
+        results.sort(Comparator.comparingInt(RowResult::getRow));
+        int created = (int) results.stream().filter(r -> r.getId() != null).count();
+        long elapsedMs = Math.max((System.nanoTime() - start) / 1_000_000, 1);
+        log.info("Imported {} users of {} in {} ms", created, results.size(), elapsedMs);
+        return new ImportResultTo(results.size(), created, results.size() - created,
+                elapsedMs, results.size() * 1000L / elapsedMs, results);
+    }
+
+    private void processChunk(Map<Integer, User> chunk, boolean encodedPasswords, List<RowResult> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Map<Integer, User> valid = new LinkedHashMap<>();
+        Map<String, Integer> emails = new HashMap<>();
+        chunk.forEach((row, user) -> {
+            List<String> errors = validate(user, encodedPasswords);
+            if (errors.isEmpty()) {
+                String email = user.getEmail().toLowerCase(Locale.ROOT);
+                if (emails.putIfAbsent(email, row) == null) {
+                    valid.put(row, user);
+                } else {
+                    errors = List.of("email: " + EXCEPTION_DUPLICATE_EMAIL);
+                }
+            }
+            if (!errors.isEmpty()) {
+                results.add(new RowResult(row, null, errors));
+            }
+        });
+        if (!emails.isEmpty()) {
+            for (String existed : repository.findExistedEmails(emails.keySet())) {
+                int row = emails.get(existed);
+                valid.remove(row);
+                results.add(new RowResult(row, null, List.of("email: " + EXCEPTION_DUPLICATE_EMAIL)));
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        if (!encodedPasswords) {
+            encodePasswords(valid.values());
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.saveAll(valid.values());
+                eventRepository.saveAll(valid.values().stream().map(user -> UserEvent.of(UserEvent.Type.CREATED, user)).toList());
+            });
+            valid.forEach((row, user) -> results.add(new RowResult(row, user.getId(), null)));
+        } catch (DataAccessException e) {
+            // concurrent insert of the same email: reject whole chunk, it was rolled back.
+            // DB message (SQL, constraint names) is logged only, client gets error type as ExceptionHandler does
+            log.warn("Import chunk failed: {}", e.getMostSpecificCause().getMessage());
+            List<String> errors = List.of(chunkError(e));
+            valid.keySet().forEach(row -> results.add(new RowResult(row, null, errors)));
+        }
+    }
+
+    private static String chunkError(DataAccessException e) {
+        String rootMsg = e.getMostSpecificCause().getMessage();
+        if (e instanceof DataIntegrityViolationException && rootMsg != null && rootMsg.toLowerCase().contains(User.EMAIL_UNIQUE_IDX)) {
+            return "email: " + EXCEPTION_DUPLICATE_EMAIL;
+        }
+        return ErrorType.DATA_CONFLICT.title;
+    }
+
+    private void encodePasswords(Collection<User> users) {
+        List<Callable<Object>> tasks = users.stream().filter(user -> user.getPassword() != null)
+                .map(user -> Executors.callable(() -> user.setPassword(passwordEncoder.encode(user.getPassword()))))
+                .toList();
+        try {
+            for (Future<Object> encoded : passwordEncoders.invokeAll(tasks)) {
+                encoded.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import is interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password encoding failed", e.getCause());
+        }
+    }
+
+    private List<String> validate(User user, boolean encodedPassword) {
+        if (user == null) {
+            return List.of("must not be null");
+        }
+        List<String> errors = new ArrayList<>();
+        if (!user.isNew()) {
+            errors.add("id: must be null");
+        }
+        for (ConstraintViolation<User> violation : validator.validate(user)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        if (encodedPassword && user.getPassword() != null && !BCRYPT_PASSWORD.matcher(user.getPassword()).matches()) {
+            errors.add("password: must be encoded by bcrypt ({bcrypt}$2a$...)");
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,93 @@
+package ru.javaops.startup.user.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.javaops.startup.user.model.Role;
+import ru.javaops.startup.user.repository.UserRepository;
+import ru.javaops.startup.user.to.UserCursor;
+import ru.javaops.startup.user.to.UserFilter;
+import ru.javaops.startup.user.to.UserView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Search of users by {@link UserFilter} in keyset pages of (name, email, id) order.
+ * Query is built only from given criteria (no "param IS NULL OR ..." predicates), so H2 can choose
+ * index on registered for the range.
+ * Prefix of name/lastName/email is searched by UNION of range scans of their lower-cased indexes:
+ * H2 uses no index for OR of conditions on different columns. See AdminUserControllerTest.searchByPrefixPlan.
+ * Substring search can't use index and scans users in the sort order up to the page limit.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class UserSearchService {
+    private static final char ESCAPE = '!';
+
+    private static final String PREFIX_IDS = """
+            u.id IN (SELECT n.id FROM User n WHERE n.nameLower LIKE :pattern ESCAPE '!'
+                     UNION SELECT l.id FROM User l WHERE l.lastNameLower LIKE :pattern ESCAPE '!'
+                     UNION SELECT e.id FROM User e WHERE e.emailLower LIKE :pattern ESCAPE '!')""";
+
+    private static final String SUBSTRING = """
+            (u.nameLower LIKE :pattern ESCAPE '!' OR u.lastNameLower LIKE :pattern ESCAPE '!'
+             OR u.emailLower LIKE :pattern ESCAPE '!')""";
+
+    private final UserRepository repository;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    //  returns up to limit views with roles, after cursor position (if not null)
+    public List<UserView> search(UserFilter filter, @Nullable UserCursor after, int limit) {
+        List<String> predicates = new ArrayList<>();
+        Map<String, Object> params = new HashMap<>();
+        if (filter.getQuery() != null && !filter.getQuery().isBlank()) {
+            String escaped = filter.getQuery().strip().toLowerCase(Locale.ROOT)
+                    .replace(String.valueOf(ESCAPE), "" + ESCAPE + ESCAPE)
+                    .replace("%", ESCAPE + "%").replace("_", ESCAPE + "_");
+            predicates.add(filter.isContains() ? SUBSTRING : PREFIX_IDS);
+            params.put("pattern", (filter.isContains() ? "%" : "") + escaped + '%');
+        }
+        if (filter.getEnabled() != null) {
+            predicates.add("u.enabled = :enabled");
+            params.put("enabled", filter.getEnabled());
+        }
+        if (filter.getRoles() != null) {
+            int i = 0;
+            for (Role role : filter.getRoles()) {
+                predicates.add(":role" + i + " MEMBER OF u.roles");
+                params.put("role" + i++, role);
+            }
+        }
+        if (filter.getRegisteredFrom() != null) {
+            predicates.add("u.registered >= :registeredFrom");
+            params.put("registeredFrom", filter.getRegisteredFrom());
+        }
+        if (filter.getRegisteredTo() != null) {
+            predicates.add("u.registered < :registeredTo");
+            params.put("registeredTo", filter.getRegisteredTo());
+        }
+        if (after != null) {
+            //  the same seek predicate as UserRepository.findPageAfter
+            predicates.add("u.name >= :name AND (u.name > :name OR u.email > :email OR (u.email = :email AND u.id > :id))");
+            params.put("name", after.getName());
+            params.put("email", after.getEmail());
+            params.put("id", after.getId());
+        }
+        String where = predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates);
+        TypedQuery<UserView> query = em.createQuery(
+                UserRepository.SELECT_VIEW_WITHOUT_ROLES + where + " ORDER BY u.name, u.email, u.id", UserView.class);
+        params.forEach(query::setParameter);
+        return repository.withRoles(query.setMaxResults(limit).getResultList());
+    }
+}
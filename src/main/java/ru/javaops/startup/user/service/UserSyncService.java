@@ -0,0 +1,85 @@
+package ru.javaops.startup.user.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.javaops.startup.common.error.IllegalRequestDataException;
+import ru.javaops.startup.user.model.UserTombstone;
+import ru.javaops.startup.user.repository.UserRepository;
+import ru.javaops.startup.user.repository.UserTombstoneRepository;
+import ru.javaops.startup.user.to.ChangeCursor;
+import ru.javaops.startup.user.to.UserChangesTo;
+import ru.javaops.startup.user.to.UserView;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Incremental sync: users modified (users.updated) and deleted (tombstones) after cursor, merged in (time, id) order.
+ * Time of change is the start of its transaction, which is visible only after commit: the last 'lag' interval
+ * is returned again on the next pass, so slow transactions are not missed (changes are idempotent for client).
+ */
+@Service
+@Slf4j
+public class UserSyncService {
+    private final UserRepository repository;
+    private final UserTombstoneRepository tombstoneRepository;
+    private final Duration lag;
+    private final Duration tombstoneRetention;
+
+    public UserSyncService(UserRepository repository, UserTombstoneRepository tombstoneRepository,
+                           @Value("${app.sync.lag:30s}") Duration lag,
+                           @Value("${app.sync.tombstone-retention:30d}") Duration tombstoneRetention) {
+        this.repository = repository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.lag = lag;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    private record Change(int id, Instant time, boolean deleted) {
+        static final Comparator<Change> ORDER = Comparator.comparing(Change::time).thenComparingInt(Change::id);
+    }
+
+    //  first page of each source is enough: merged page is the first 'size' of both
+    @Transactional(readOnly = true)
+    public UserChangesTo changes(ChangeCursor after, int size) {
+        if (!after.isInitial() && after.getTime().isBefore(Instant.now().minus(tombstoneRetention))) {
+            throw new IllegalRequestDataException("Cursor is older than retention of deleted users " + tombstoneRetention + ", sync from start");
+        }
+        List<Change> changes = new ArrayList<>(size * 2 + 2);
+        for (Object[] row : repository.findChangedAfter(after.getTime(), after.getId(), Limit.of(size + 1))) {
+            changes.add(new Change((Integer) row[0], (Instant) row[1], false));
+        }
+        for (UserTombstone tombstone : tombstoneRepository.findDeletedAfter(after.getTime(), after.getId(), Limit.of(size + 1))) {
+            changes.add(new Change(tombstone.getId(), tombstone.getDeleted(), true));
+        }
+        changes.sort(Change.ORDER);
+        boolean complete = changes.size() <= size;
+        List<Change> page = complete ? changes : changes.subList(0, size);
+
+        ChangeCursor next = page.isEmpty() ? after : new ChangeCursor(page.getLast().time(), page.getLast().id(), after.isInitial());
+        if (complete) {
+            Instant horizon = Instant.now().minus(lag);
+            next = next.getTime().isAfter(horizon) ? new ChangeCursor(horizon, 0, false) : new ChangeCursor(next.getTime(), next.getId(), false);
+        }
+        List<Integer> changedIds = page.stream().filter(change -> !change.deleted()).map(Change::id).toList();
+        List<UserView> changed = changedIds.isEmpty() ? List.of() : repository.withRoles(repository.findViews(changedIds));
+        List<Integer> deleted = page.stream().filter(Change::deleted).map(Change::id).toList();
+        return new UserChangesTo(changed, deleted, next.encode(), complete);
+    }
+
+    //  client with older cursor gets error and syncs from start
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT1M")
+    public void purgeTombstones() {
+        int deleted = tombstoneRepository.deleteBefore(Instant.now().minus(tombstoneRetention));
+        if (deleted > 0) {
+            log.info("Purged {} tombstones of users older than {}", deleted, tombstoneRetention);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ru.javaops.startup.user.to;
+
+import lombok.Value;
+
+//  https://datatracker.ietf.org/doc/html/rfc6750#section-4
+@Value
+public class AccessTokenTo {
+    String accessToken;
+    String tokenType;
+    long expiresIn;
+}
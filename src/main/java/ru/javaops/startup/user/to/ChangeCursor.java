@@ -0,0 +1,37 @@
+package ru.javaops.startup.user.to;
+
+import lombok.Value;
+import ru.javaops.startup.common.error.IllegalRequestDataException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position of incremental sync in (time of change, id) order.
+ * Initial is set while the first (full) pass is paged: it starts before any retained tombstone.
+ * Encoded as opaque url-safe token: clients must not parse it.
+ */
+@Value
+public class ChangeCursor {
+    public static final ChangeCursor START = new ChangeCursor(Instant.EPOCH, 0, true);
+
+    Instant time;
+    int id;
+    boolean initial;
+
+    public String encode() {
+        String raw = time + "\n" + id + "\n" + initial;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ChangeCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\n", 3);
+            return new ChangeCursor(Instant.parse(parts[0]), Integer.parseInt(parts[1]), Boolean.parseBoolean(parts[2]));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalRequestDataException("Invalid cursor '" + token + "'");
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.javaops.startup.user.to;
+
+import lombok.Value;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+@Value
+public class ImportResultTo {
+    int total;
+    int created;
+    int failed;
+    long elapsedMs;
+    long rowsPerSecond;
+    List<RowResult> rows;
+
+    // id of created user or errors of rejected one
+    @Value
+    public static class RowResult {
+        int row;
+        @Nullable
+        Integer id;
+        @Nullable
+        List<String> errors;
+    }
+}
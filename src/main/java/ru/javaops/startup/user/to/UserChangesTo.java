@@ -0,0 +1,14 @@
+package ru.javaops.startup.user.to;
+
+import lombok.Value;
+
+import java.util.List;
+
+//  Page of incremental sync: cursor continues the pass while not complete, then is kept for the next pass
+@Value
+public class UserChangesTo {
+    List<UserView> changed;
+    List<Integer> deleted;
+    String cursor;
+    boolean complete;
+}
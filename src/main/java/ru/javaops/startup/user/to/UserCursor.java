@@ -0,0 +1,37 @@
+package ru.javaops.startup.user.to;
+
+import lombok.Value;
+import ru.javaops.startup.common.error.IllegalRequestDataException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in the (name, email, id) sort order of users.
+ * Encoded as opaque url-safe token: clients must not parse it.
+ */
+@Value
+public class UserCursor {
+    String name;
+    String email;
+    int id;
+
+    public static UserCursor of(UserView user) {
+        return new UserCursor(user.getName(), user.getEmail(), user.id());
+    }
+
+    // email can't contain line break, name goes last as it can
+    public String encode() {
+        String raw = id + "\n" + email + "\n" + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static UserCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\n", 3);
+            return new UserCursor(parts[2], parts[1], Integer.parseInt(parts[0]));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalRequestDataException("Invalid cursor '" + token + "'");
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.javaops.startup.user.to;
+
+import lombok.Value;
+import org.springframework.lang.Nullable;
+import ru.javaops.startup.user.model.Role;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Search criteria of users, null (or empty) criterion is not applied.
+ */
+@Value
+public class UserFilter {
+    //  case-insensitive prefix (or substring if contains) of name, lastName or email
+    @Nullable
+    String query;
+    boolean contains;
+    @Nullable
+    Boolean enabled;
+    //  user must have all of them
+    @Nullable
+    Set<Role> roles;
+    //  registered in [from, to)
+    @Nullable
+    Date registeredFrom;
+    @Nullable
+    Date registeredTo;
+}
@@ -0,0 +1,71 @@
+package ru.javaops.startup.user.to;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.EqualsAndHashCode;
+import lombok.Value;
+import org.springframework.lang.Nullable;
+import ru.javaops.startup.common.to.NamedTo;
+import ru.javaops.startup.user.model.Role;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Read-only user with the same json as {@link ru.javaops.startup.user.model.User}.
+ * Built by query projection: no entity hydration, persistence context and roles collection fetch.
+ */
+@Value
+@EqualsAndHashCode(callSuper = true)
+public class UserView extends NamedTo {
+    String email;
+    String lastName;
+    boolean enabled;
+    Date registered;
+    //  entity version, source of ETag
+    int version;
+
+    // roles as bitmask, see Role.bit()
+    @JsonIgnore
+    int roleMask;
+
+    //  roles are aggregated by query into comma separated names, null if user has no roles
+    public UserView(Integer id, String name, String email, String lastName, boolean enabled, Date registered, int version, @Nullable String roles) {
+        this(id, name, email, lastName, enabled, registered, version, parseMask(roles));
+    }
+
+    public UserView(Integer id, String name, String email, String lastName, boolean enabled, Date registered, int version, int roleMask) {
+        super(id, name);
+        this.email = email;
+        this.lastName = lastName;
+        this.enabled = enabled;
+        this.registered = registered;
+        this.version = version;
+        this.roleMask = roleMask;
+    }
+
+    //  getters are not visible to json (see spring.jackson.visibility)
+    @JsonProperty("roles")
+    public Set<Role> getRoles() {
+        return Role.fromMask(roleMask);
+    }
+
+    public UserView withRoleMask(int roleMask) {
+        return new UserView(id, name, email, lastName, enabled, registered, version, roleMask);
+    }
+
+    private static int parseMask(@Nullable String roles) {
+        int mask = 0;
+        if (roles != null) {
+            for (String role : roles.split(",")) {
+                mask |= Role.valueOf(role).bit();
+            }
+        }
+        return mask;
+    }
+
+    @Override
+    public String toString() {
+        return "UserView:" + id + '[' + email + ']';
+    }
+}
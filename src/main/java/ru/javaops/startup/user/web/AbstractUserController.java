@@ -2,30 +2,21 @@ package ru.javaops.startup.user.web;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.web.bind.WebDataBinder;
-import org.springframework.web.bind.annotation.InitBinder;
-import ru.javaops.startup.user.model.User;
 import ru.javaops.startup.user.repository.UserRepository;
+import ru.javaops.startup.user.to.UserView;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
 public abstract class AbstractUserController {
+    //  reads are logged at DEBUG (per request, hot path), modifications at INFO
     protected final Logger log = getLogger(getClass());
 
     @Autowired
     protected UserRepository repository;
 
-    @Autowired
-    private UniqueMailValidator emailValidator;
-
-    @InitBinder
-    protected void initBinder(WebDataBinder binder) {
-        binder.addValidators(emailValidator);
-    }
-
-    public User get(int id) {
-        log.info("get {}", id);
-        return repository.getExisted(id);
+    public UserView get(int id) {
+        log.debug("get {}", id);
+        return repository.getExistedView(id);
     }
 
     public void delete(int id) {
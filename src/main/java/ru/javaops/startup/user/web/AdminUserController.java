@@ -1,78 +1,266 @@
 package ru.javaops.startup.user.web;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import ru.javaops.startup.app.config.SecurityConfig;
+import ru.javaops.startup.common.error.IllegalRequestDataException;
+import ru.javaops.startup.common.error.PreconditionFailedException;
+import ru.javaops.startup.common.to.PageTo;
+import ru.javaops.startup.common.util.ETagUtil;
+import ru.javaops.startup.common.util.JsonUtil;
+import ru.javaops.startup.common.util.Util;
+import ru.javaops.startup.user.model.Role;
 import ru.javaops.startup.user.model.User;
+import ru.javaops.startup.user.model.UserEvent;
+import ru.javaops.startup.user.repository.UserEventRepository;
+import ru.javaops.startup.user.service.UserImportService;
+import ru.javaops.startup.user.service.UserSearchService;
+import ru.javaops.startup.user.service.UserSyncService;
+import ru.javaops.startup.user.to.ChangeCursor;
+import ru.javaops.startup.user.to.ImportResultTo;
+import ru.javaops.startup.user.to.UserChangesTo;
+import ru.javaops.startup.user.to.UserCursor;
+import ru.javaops.startup.user.to.UserFilter;
+import ru.javaops.startup.user.to.UserView;
 
+import java.io.IOException;
 import java.net.URI;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static ru.javaops.startup.common.validation.ValidationUtil.assureIdConsistent;
 import static ru.javaops.startup.common.validation.ValidationUtil.checkNew;
 
 @RestController
-@RequestMapping(value = AdminUserController.REST_URL, produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(value = AdminUserController.REST_URL,
+        produces = {MediaType.APPLICATION_JSON_VALUE, AdminUserController.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
 public class AdminUserController extends AbstractUserController {
 
     public static final String REST_URL = SecurityConfig.API_PATH + "/admin/users";
+    //  no constant in MediaType, see MappingJackson2SmileHttpMessageConverter
+    static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final int MAX_PAGE_SIZE = 1000;
+    static final int STREAM_CHUNK_SIZE = 500;
 
-    @Override
+    @Autowired
+    private UserImportService importService;
+
+    @Autowired
+    private UserSearchService searchService;
+
+    @Autowired
+    private UserSyncService syncService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    //  modifications are transactional with their events in outbox (see UserEventPublisher)
+    @Autowired
+    private UserEventRepository eventRepository;
+
+    @Autowired
+    private UserEventStream eventStream;
+
+    //  https://docs.spring.io/spring-framework/reference/web/webmvc/mvc-caching.html#mvc-caching-etag-lastmodified
+    //  304 without body for If-None-Match with current ETag
     @GetMapping("/{id}")
-    public User get(@PathVariable int id) {
-        return super.get(id);
+    public UserView get(@PathVariable int id, WebRequest request) {
+        UserView user = super.get(id);
+        return request.checkNotModified(ETagUtil.of(user.getVersion())) ? null : user;
     }
 
-    @Override
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void delete(@PathVariable int id) {
-        super.delete(id);
+    @Transactional
+    public void delete(@PathVariable int id, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Integer version = ETagUtil.parseIfMatch(ifMatch);
+        if (version == null) {
+            super.delete(id);
+        } else {
+            log.info("delete {} with version={}", id, version);
+            repository.deleteExisted(id, version);
+        }
+        eventRepository.save(UserEvent.of(UserEvent.Type.DELETED, id));
     }
 
+    //  ETag is calculated from ids and versions: saves serialization and transfer of unchanged list
     @GetMapping
-    public List<User> getAll() {
-        log.info("getAll");
-        return repository.findAll(Sort.by(Sort.Direction.ASC, "name", "email"));
+    public List<UserView> getAll(WebRequest request) {
+        log.debug("getAll");
+        List<UserView> users = repository.findAllViews();
+        return request.checkNotModified(ETagUtil.of(users, UserView::getVersion)) ? null : users;
+    }
+
+    @GetMapping("/page")
+    public PageTo<UserView> getPage(@RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) {
+        log.debug("getPage after {} with size={}", cursor, size);
+        checkPageSize(size);
+        // one extra row tells whether next page exists
+        Limit limit = Limit.of(size + 1);
+        List<UserView> users;
+        if (cursor == null) {
+            users = repository.findFirstPage(limit);
+        } else {
+            UserCursor after = UserCursor.decode(cursor);
+            users = repository.findPageAfter(after.getName(), after.getEmail(), after.getId(), limit);
+        }
+        if (users.size() <= size) {
+            return new PageTo<>(repository.withRoles(users), null);
+        }
+        List<UserView> content = repository.withRoles(users.subList(0, size));
+        return new PageTo<>(content, UserCursor.of(content.get(size - 1)).encode());
+    }
+
+    @GetMapping("/search")
+    public PageTo<UserView> search(@RequestParam(required = false) String query,
+                                   @RequestParam(defaultValue = "false") boolean contains,
+                                   @RequestParam(required = false) Boolean enabled,
+                                   @RequestParam(required = false) Set<Role> roles,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date registeredFrom,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date registeredTo,
+                                   @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) {
+        UserFilter filter = new UserFilter(query, contains, enabled, roles, registeredFrom, registeredTo);
+        log.debug("search {} after {} with size={}", filter, cursor, size);
+        checkPageSize(size);
+        List<UserView> users = searchService.search(filter, cursor == null ? null : UserCursor.decode(cursor), size + 1);
+        if (users.size() <= size) {
+            return new PageTo<>(users, null);
+        }
+        List<UserView> content = users.subList(0, size);
+        return new PageTo<>(content, UserCursor.of(content.get(size - 1)).encode());
+    }
+
+    //  incremental sync instead of full list: users changed and deleted after cursor of previous pass, all users without cursor
+    @GetMapping("/changes")
+    public UserChangesTo getChanges(@RequestParam(required = false) String cursor, @RequestParam(defaultValue = "100") int size) {
+        log.debug("getChanges after {} with size={}", cursor, size);
+        checkPageSize(size);
+        return syncService.changes(cursor == null ? ChangeCursor.START : ChangeCursor.decode(cursor), size);
+    }
+
+    // Memory stays flat: users are written as they are read from JDBC cursor, roles are loaded by chunks
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Transactional(readOnly = true)
+    public void streamAll(HttpServletResponse response) throws IOException {
+        log.debug("streamAll");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try (Stream<UserView> users = repository.streamAll()) {
+            JsonUtil.writeValues(response.getOutputStream(),
+                    Util.chunked(users, STREAM_CHUNK_SIZE).flatMap(chunk -> repository.withRoles(chunk).stream()));
+        }
+    }
+
+    //  instead of polling of getAll: changes after seq (Last-Event-ID on reconnect), only new ones by default
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestParam(required = false) Long since,
+                             @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long after = lastEventId != null ? lastEventId : since != null ? since : eventRepository.findMaxSeq();
+        log.debug("events after {}", after);
+        return eventStream.open(after);
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Transactional
     public ResponseEntity<User> createWithLocation(@Valid @RequestBody User user) {
         log.info("create {}", user);
         checkNew(user);
-        User created = repository.save(user);
+        encodePassword(user);
+        // flush: duplicate email fails here by unique index (translated in RestExceptionHandler)
+        User created = repository.saveAndFlush(user);
+        eventRepository.save(UserEvent.of(UserEvent.Type.CREATED, created));
         URI uriOfNewResource = ServletUriComponentsBuilder.fromCurrentContextPath()
                 .path(REST_URL + "/{id}")
                 .buildAndExpand(created.getId()).toUri();
         return ResponseEntity.created(uriOfNewResource).body(created);
     }
 
+    // Body is read as stream, not bound by @RequestBody: memory doesn't depend on number of users.
+    // encodedPasswords: passwords are bcrypt hashes of other system ({bcrypt}$2a$...), stored without encoding
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ImportResultTo importUsers(HttpServletRequest request,
+                                      @RequestParam(defaultValue = "false") boolean encodedPasswords) throws IOException {
+        log.info("importUsers with encodedPasswords={}", encodedPasswords);
+        return importService.importUsers(request.getInputStream(), encodedPasswords);
+    }
+
     @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void update(@Valid @RequestBody User user, @PathVariable int id) {
+    @Transactional
+    public void update(@Valid @RequestBody User user, @PathVariable int id,
+                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info("update {} with id={}", user, id);
         assureIdConsistent(user, id);
-        repository.save(user);
+        // managed entity keeps current password when json has none, flush checks its version (optimistic lock).
+        // Version is not taken from json: without If-Match the last write wins
+        User existed = repository.getExisted(id);
+        Integer expected = ETagUtil.parseIfMatch(ifMatch);
+        if (expected != null && expected != existed.getVersion()) {
+            throw new PreconditionFailedException("Entity with id=" + id + " was modified, its version is not " + expected);
+        }
+        encodePassword(user);
+        existed.update(user);
+        eventRepository.save(UserEvent.of(UserEvent.Type.UPDATED, repository.saveAndFlush(existed)));
     }
 
     @GetMapping("/by-email")
-    public User getByEmail(@RequestParam String email) {
-        log.info("getByEmail {}", email);
-        return repository.getExistedByEmail(email);
+    public UserView getByEmail(@RequestParam String email) {
+        log.debug("getByEmail {}", email);
+        return repository.getExistedViewByEmail(email);
     }
 
     @PatchMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Transactional
-    public void enable(@PathVariable int id, @RequestParam boolean enabled) {
+    public void enable(@PathVariable int id, @RequestParam boolean enabled,
+                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         log.info(enabled ? "enable {}" : "disable {}", id);
-        User user = repository.getExisted(id);
-        user.setEnabled(enabled);
+        Integer version = ETagUtil.parseIfMatch(ifMatch);
+        if (version == null) {
+            repository.enableExisted(id, enabled);
+        } else {
+            repository.enableExisted(id, enabled, version);
+        }
+        eventRepository.save(UserEvent.of(enabled ? UserEvent.Type.ENABLED : UserEvent.Type.DISABLED, id));
+    }
+
+    @PatchMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Transactional
+    public void enableAll(@RequestBody Set<Integer> ids, @RequestParam boolean enabled) {
+        log.info(enabled ? "enable {}" : "disable {}", ids);
+        if (ids.isEmpty() || ids.size() > MAX_PAGE_SIZE) {
+            throw new IllegalRequestDataException("Number of ids must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        repository.enableAllExisted(ids, enabled);
+        UserEvent.Type type = enabled ? UserEvent.Type.ENABLED : UserEvent.Type.DISABLED;
+        eventRepository.saveAll(ids.stream().map(id -> UserEvent.of(type, id)).toList());
+    }
+
+    private void encodePassword(User user) {
+        if (user.getPassword() != null) {
+            user.setPassword(passwordEncoder.encode(user.getPassword()));
+        }
+    }
+
+    private static void checkPageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalRequestDataException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package ru.javaops.startup.user.web;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.javaops.startup.app.config.AccessTokenService;
+import ru.javaops.startup.app.config.SecurityConfig;
+import ru.javaops.startup.user.to.AccessTokenTo;
+
+//  Login of API client: credentials are checked once (HTTP Basic), then requests carry "Authorization: Bearer <token>"
+@RestController
+@RequestMapping(value = AuthController.REST_URL, produces = MediaType.APPLICATION_JSON_VALUE)
+@AllArgsConstructor
+@Slf4j
+public class AuthController {
+    public static final String REST_URL = SecurityConfig.API_PATH + "/auth";
+
+    private final AccessTokenService tokenService;
+
+    @PostMapping("/token")
+    public AccessTokenTo token(Authentication authentication) {
+        log.info("issue token for {}", authentication.getName());
+        return new AccessTokenTo(tokenService.issue(authentication.getName()), "Bearer", tokenService.getTtl().toSeconds());
+    }
+}
@@ -0,0 +1,85 @@
+package ru.javaops.startup.user.web;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.javaops.startup.user.model.UserEvent;
+import ru.javaops.startup.user.repository.UserEventRepository;
+import ru.javaops.startup.user.service.UserEventBroker;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-Sent Events of user changes after given seq, tailed from outbox by seq: events of publisher at any node are sent.
+ * Publishing at this node wakes stream up at once (broker), publishing at other node is seen by poll.
+ * Seq order is commit order (see UserEventPublisher): no event is skipped. Slow client reads outbox at its own pace.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class UserEventStream {
+    static final int BATCH_SIZE = 500;
+    //  idle stream costs one range scan by unique index on seq per poll
+    static final long POLL_MS = 1000;
+    static final long TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+    //  write to disconnected client fails: idle stream is checked by heartbeat comment
+    static final long HEARTBEAT_SEC = 15;
+
+    private final UserEventRepository repository;
+    private final UserEventBroker broker;
+
+    SseEmitter open(long after) {
+        SseEmitter emitter = new SseEmitter(TIMEOUT_MS);
+        Semaphore published = new Semaphore(0);
+        Runnable unsubscribe = broker.subscribe(batch -> published.release());
+        Thread sender = Thread.ofVirtual().name("user-events").start(() -> {
+            try {
+                long last = after;
+                long lastSent = System.nanoTime();
+                while (true) {
+                    List<UserEvent> batch = repository.findPublishedAfter(last, Limit.of(BATCH_SIZE));
+                    if (!batch.isEmpty()) {
+                        last = send(emitter, batch);
+                        lastSent = System.nanoTime();
+                        if (batch.size() == BATCH_SIZE) {
+                            continue;
+                        }
+                    } else if (System.nanoTime() - lastSent >= TimeUnit.SECONDS.toNanos(HEARTBEAT_SEC)) {
+                        emitter.send(SseEmitter.event().comment(""));
+                        lastSent = System.nanoTime();
+                    }
+                    published.tryAcquire(POLL_MS, TimeUnit.MILLISECONDS);
+                    published.drainPermits();
+                }
+            } catch (IOException | IllegalStateException | InterruptedException e) {
+                // client is disconnected or emitter is completed
+                log.debug("Events stream is closed: {}", e.toString());
+            } catch (DataAccessException e) {
+                // client resumes by Last-Event-ID
+                log.warn("Events stream is closed by DB error: {}", e.toString());
+                emitter.completeWithError(e);
+            } finally {
+                unsubscribe.run();
+            }
+        });
+        emitter.onCompletion(sender::interrupt);
+        emitter.onError(e -> sender.interrupt());
+        return emitter;
+    }
+
+    //  seq of the last sent event
+    private static long send(SseEmitter emitter, List<UserEvent> batch) throws IOException {
+        for (UserEvent event : batch) {
+            emitter.send(SseEmitter.event().id(String.valueOf(event.getSeq())).name("user")
+                    .data(event, MediaType.APPLICATION_JSON));
+        }
+        return batch.getLast().getSeq();
+    }
+}
@@ -1,9 +1,9 @@
-INSERT INTO USERS (name, email, last_name)
-VALUES ('User', 'user@yandex.ru', 'UserLastName'),
-       ('Admin', 'admin@gmail.com', 'AdminLastName'),
-       ('Guest', 'guest@gmail.com', 'GuestLastName');
+INSERT INTO USERS (id, name, email, last_name, password)
+VALUES (1, 'User', 'user@yandex.ru', 'UserLastName', '{noop}password'),
+       (2, 'Admin', 'admin@gmail.com', 'AdminLastName', '{noop}admin'),
+       (3, 'Guest', 'guest@gmail.com', 'GuestLastName', null);
 
 INSERT INTO USER_ROLE (role, user_id)
 VALUES ('USER', 1),
        ('ADMIN', 2),
-       ('USER', 2);
\ No newline at end of file
+       ('USER', 2);
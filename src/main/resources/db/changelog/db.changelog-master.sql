@@ -0,0 +1,85 @@
+--liquibase formatted sql
+-- Schema of prod profile (see config/application-prod.yaml), must match entities: Hibernate doesn't create it there.
+-- Database created by former ddl-auto=create (schema and data recreated on every start) must be removed before first run
+
+--changeset startup:1
+-- increment must match allocationSize of global_seq (BaseEntity)
+CREATE SEQUENCE global_seq START WITH 1000 INCREMENT BY 20;
+
+CREATE TABLE users
+(
+    id              INTEGER                 NOT NULL PRIMARY KEY,
+    name            VARCHAR(255)            NOT NULL,
+    email           VARCHAR(255)            NOT NULL,
+    last_name       VARCHAR(255),
+    enabled         BOOL      DEFAULT TRUE  NOT NULL,
+    registered      TIMESTAMP DEFAULT NOW() NOT NULL,
+    version         INT       DEFAULT 0     NOT NULL,
+    email_lower     VARCHAR(64) GENERATED ALWAYS AS (LOWER(email)),
+    name_lower      VARCHAR(255) GENERATED ALWAYS AS (LOWER(name)),
+    last_name_lower VARCHAR(255) GENERATED ALWAYS AS (LOWER(last_name))
+);
+-- keyset pagination in (name, email, id) order
+CREATE INDEX users_name_email_id_idx ON users (name, email, id);
+-- case-insensitive lookup and uniqueness of email
+CREATE UNIQUE INDEX users_email_lower_idx ON users (email_lower);
+-- search (UserSearchService)
+CREATE INDEX users_name_lower_idx ON users (name_lower);
+CREATE INDEX users_last_name_lower_idx ON users (last_name_lower);
+CREATE INDEX users_registered_idx ON users (registered);
+
+CREATE TABLE user_role
+(
+    user_id INTEGER      NOT NULL,
+    role    VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_user_role UNIQUE (user_id, role),
+    FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+--changeset startup:2
+INSERT INTO users (id, name, email, last_name)
+VALUES (1, 'User', 'user@yandex.ru', 'UserLastName'),
+       (2, 'Admin', 'admin@gmail.com', 'AdminLastName'),
+       (3, 'Guest', 'guest@gmail.com', 'GuestLastName');
+
+INSERT INTO user_role (role, user_id)
+VALUES ('USER', 1),
+       ('ADMIN', 2),
+       ('USER', 2);
+
+--changeset startup:3
+ALTER TABLE users ADD COLUMN password VARCHAR(128);
+
+--changeset startup:4
+-- outbox of user modifications (UserEvent), increment must match allocationSize of user_event_id_seq
+CREATE SEQUENCE user_event_id_seq START WITH 1 INCREMENT BY 20;
+
+CREATE TABLE user_event
+(
+    id      BIGINT      NOT NULL PRIMARY KEY,
+    seq     BIGINT,
+    user_id INTEGER     NOT NULL,
+    type    VARCHAR(16) NOT NULL,
+    created TIMESTAMP WITH TIME ZONE NOT NULL,
+    payload VARCHAR(4096)
+);
+-- unpublished events (seq IS NULL) and consumers' catch up by seq
+CREATE UNIQUE INDEX user_event_seq_idx ON user_event (seq);
+
+--changeset startup:5
+-- incremental sync (UserSyncService): time of last modification, maintained by DB
+ALTER TABLE users ADD COLUMN updated TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP;
+CREATE INDEX users_updated_id_idx ON users (updated, id);
+
+CREATE TABLE user_tombstone
+(
+    id      INTEGER                                            NOT NULL PRIMARY KEY,
+    deleted TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+CREATE INDEX user_tombstone_deleted_id_idx ON user_tombstone (deleted, id);
+
+--changeset startup:6
+-- lengths of entity validation (@Size): Hibernate validate checks types only, not lengths
+ALTER TABLE users ALTER COLUMN name SET DATA TYPE VARCHAR(64);
+ALTER TABLE users ALTER COLUMN email SET DATA TYPE VARCHAR(64);
+ALTER TABLE users ALTER COLUMN last_name SET DATA TYPE VARCHAR(32);
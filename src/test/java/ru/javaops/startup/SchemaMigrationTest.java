@@ -0,0 +1,38 @@
+package ru.javaops.startup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.javaops.startup.user.repository.UserRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Changelog is applied to empty DB and validated by Hibernate (context fails to start on drift).
+ * Column lengths are not validated by Hibernate: checked here against @Size of User
+ */
+@SpringBootTest
+@ActiveProfiles({"test", "migration"})
+class SchemaMigrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository repository;
+
+    @Test
+    void migrated() {
+        assertEquals(3, repository.count());
+        assertEquals(64, columnLength("NAME"));
+        assertEquals(64, columnLength("EMAIL"));
+        assertEquals(32, columnLength("LAST_NAME"));
+    }
+
+    private int columnLength(String column) {
+        return jdbcTemplate.queryForObject("SELECT CHARACTER_MAXIMUM_LENGTH FROM INFORMATION_SCHEMA.COLUMNS " +
+                "WHERE TABLE_NAME = 'USERS' AND COLUMN_NAME = ?", Integer.class, column);
+    }
+}
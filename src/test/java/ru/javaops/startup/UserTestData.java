@@ -7,7 +7,7 @@ import java.util.Collections;
 import java.util.Date;
 
 public class UserTestData {
-    public static final MatcherFactory.Matcher<User> USER_MATCHER = MatcherFactory.usingIgnoringFieldsComparator(User.class, "registered");
+    public static final MatcherFactory.Matcher<User> USER_MATCHER = MatcherFactory.usingIgnoringFieldsComparator(User.class, "registered", "emailLower", "nameLower", "lastNameLower", "version", "password", "updated");
 
     public static final int USER_ID = 1;
     public static final int ADMIN_ID = 2;
@@ -0,0 +1,68 @@
+package ru.javaops.startup.app.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AccessTokenServiceTest {
+    private static final byte[] SECRET = "test-secret-test-secret-test-secret".getBytes(StandardCharsets.UTF_8);
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final AccessTokenService service = service(SECRET, NOW);
+
+    private static AccessTokenService service(byte[] secret, Instant now) {
+        return new AccessTokenService(secret, Duration.ofMinutes(30), Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    @Test
+    void verify() {
+        assertEquals("user@yandex.ru", service.verify(service.issue("user@yandex.ru")));
+    }
+
+    @Test
+    void verifyOtherNode() {
+        assertEquals("user@yandex.ru", service(SECRET, NOW).verify(service.issue("user@yandex.ru")));
+    }
+
+    @Test
+    void expired() {
+        String token = service.issue("user@yandex.ru");
+        assertNull(service(SECRET, NOW.plus(Duration.ofMinutes(30))).verify(token));
+    }
+
+    @Test
+    void otherSecret() {
+        String token = service.issue("user@yandex.ru");
+        assertNull(service("other-secret-other-secret-other-secret".getBytes(StandardCharsets.UTF_8), NOW).verify(token));
+    }
+
+    @Test
+    void shortSecret() {
+        assertThrows(IllegalStateException.class, () -> service("short-secret".getBytes(StandardCharsets.UTF_8), NOW));
+    }
+
+    @Test
+    void tampered() {
+        String token = service.issue("user@yandex.ru");
+        String[] parts = token.split("\\.");
+        // prolonged expiration with original signature
+        assertNull(service.verify(parts[0] + '.' + (Long.parseLong(parts[1]) + 3600) + '.' + parts[2]));
+        assertNull(service.verify(token.substring(0, token.length() - 2)));
+    }
+
+    @Test
+    void malformed() {
+        assertNull(service.verify(""));
+        assertNull(service.verify("abc"));
+        assertNull(service.verify("a.b"));
+        assertNull(service.verify("!!.1.??"));
+    }
+}
@@ -0,0 +1,62 @@
+package ru.javaops.startup.app.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Password is checked by delegate once, then by cache; wrong password is never accepted from cache
+ */
+class CachingAuthenticationProviderTest {
+    private final AtomicInteger checks = new AtomicInteger();
+    private final ConcurrentMapCache cache = new ConcurrentMapCache("credentials");
+    private final CachingAuthenticationProvider provider;
+
+    CachingAuthenticationProviderTest() {
+        DaoAuthenticationProvider dao = new DaoAuthenticationProvider() {
+            @Override
+            public Authentication authenticate(Authentication authentication) {
+                checks.incrementAndGet();
+                return super.authenticate(authentication);
+            }
+        };
+        dao.setUserDetailsService(new InMemoryUserDetailsManager(
+                User.withUsername("user").password("{noop}password").roles("USER").build()));
+        provider = new CachingAuthenticationProvider(dao, cache);
+    }
+
+    @Test
+    void authenticate() {
+        Authentication first = provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("user", "password"));
+        Authentication second = provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("user", "password"));
+        assertEquals(1, checks.get());
+        assertEquals(first.getName(), second.getName());
+        assertEquals(first.getAuthorities(), second.getAuthorities());
+        assertTrue(second.isAuthenticated());
+    }
+
+    @Test
+    void wrongPassword() {
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("user", "password"));
+        assertThrows(BadCredentialsException.class,
+                () -> provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("user", "wrong")));
+        assertEquals(2, checks.get());
+    }
+
+    @Test
+    void evicted() {
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("user", "password"));
+        cache.clear();
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("user", "password"));
+        assertEquals(2, checks.get());
+    }
+}
@@ -0,0 +1,62 @@
+package ru.javaops.startup.app.error;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
+import ru.javaops.startup.common.error.NotFoundException;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.javaops.startup.common.error.ErrorType.*;
+
+/**
+ * Cached error type resolution must give the same results as scan of HTTP_STATUS_MAP
+ */
+class BasicExceptionHandlerTest {
+
+    @Test
+    void findErrorType() {
+        assertEquals(Optional.of(NOT_FOUND), BasicExceptionHandler.findErrorType(new NotFoundException("msg")));
+        // subclass of mapped DataIntegrityViolationException
+        assertEquals(Optional.of(DATA_CONFLICT), BasicExceptionHandler.findErrorType(new DuplicateKeyException("msg")));
+        // more specific first: NoResourceFoundException is ServletException, not mapped as it is
+        assertEquals(Optional.of(NOT_FOUND), BasicExceptionHandler.findErrorType(new NoResourceFoundException(HttpMethod.GET, "path")));
+        assertEquals(Optional.empty(), BasicExceptionHandler.findErrorType(new IllegalStateException("msg")));
+        // cached value
+        assertEquals(Optional.empty(), BasicExceptionHandler.findErrorType(new IllegalStateException("msg")));
+    }
+
+    @Test
+    void sampleStackTrace() {
+        class StormException extends RuntimeException {
+        }
+        assertTrue(BasicExceptionHandler.sampleStackTrace(StormException.class));
+        assertFalse(BasicExceptionHandler.sampleStackTrace(StormException.class));
+    }
+
+    @Test
+    void processErrorLevel() {
+        Logger logger = (Logger) LoggerFactory.getLogger(BasicExceptionHandler.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        try {
+            BasicExceptionHandler handler = new BasicExceptionHandler();
+            handler.processError(null, "/static/missing.js", 404, "No static resource", null, () -> null);
+            handler.processError(null, "/api/admin/users", 403, "Forbidden", null, () -> null);
+            handler.processError(null, "/api/admin/users", 500, "Internal error", null, () -> null);
+            assertEquals(List.of(Level.WARN, Level.ERROR), appender.list.stream()
+                    .map(ILoggingEvent::getLevel).filter(level -> level.isGreaterOrEqual(Level.WARN)).toList());
+        } finally {
+            logger.detachAppender(appender);
+        }
+    }
+}
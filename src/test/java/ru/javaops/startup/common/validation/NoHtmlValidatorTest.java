@@ -0,0 +1,51 @@
+package ru.javaops.startup.common.validation;
+
+import org.jsoup.Jsoup;
+import org.jsoup.safety.Safelist;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fast path of NoHtmlValidator must accept and reject exactly as full Jsoup check
+ */
+class NoHtmlValidatorTest {
+    private static final String ALPHABET = "aZ9 .-_@'\"/=;:!?#<>&\0\r\n\tёЯ€😀 �";
+    private static final int SAMPLES = 100_000;
+
+    private final NoHtmlValidator validator = new NoHtmlValidator();
+
+    @Test
+    void corpus() {
+        Stream.of("", " ", "User", "user@yandex.ru", "Кислин-Иванов", "O'Brien", "a > b", "x = \"y\"",
+                        "Tom & Jerry", "&amp;", "&lt;b&gt;", "&#60;", "&nbsp", "a<b", "<b>bold</b>", "<script>alert(123)</script>",
+                        "<!-- comment -->", "</p>", "<", "&", "\0", "line\r\nbreak")
+                .forEach(this::assertSameAsJsoup);
+    }
+
+    @Test
+    void randomStrings() {
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            char[] chars = new char[random.nextInt(12)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            }
+            assertSameAsJsoup(new String(chars));
+        }
+    }
+
+    @Test
+    void plainTextSkipsJsoup() {
+        assertTrue(NoHtmlValidator.isPlainText("grigory.kislin@javaops.ru"));
+        assertFalse(NoHtmlValidator.isPlainText("Tom & Jerry"));
+        assertFalse(NoHtmlValidator.isPlainText("<b>"));
+    }
+
+    private void assertSameAsJsoup(String value) {
+        assertEquals(Jsoup.isValid(value, Safelist.none()), validator.isValid(value, null), () -> "Value '" + value + "'");
+    }
+}
@@ -0,0 +1,70 @@
+package ru.javaops.startup.user.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.javaops.startup.user.model.User;
+import ru.javaops.startup.user.to.UserView;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.javaops.startup.UserTestData.*;
+
+/**
+ * Cache is enabled (test profile has none) and modifications are committed: eviction happens after commit.
+ * Not @Transactional: changes are reverted by @AfterEach
+ */
+@SpringBootTest(properties = "spring.cache.type=caffeine")
+@ActiveProfiles("test")
+class UserCacheTest {
+
+    @Autowired
+    private UserRepository repository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void restore() {
+        User restored = repository.getExisted(USER_ID);
+        restored.setName(user.getName());
+        restored.setEnabled(true);
+        repository.save(restored);
+    }
+
+    @Test
+    void enable() {
+        assertTrue(repository.getExistedView(USER_ID).isEnabled());
+        assertNotNull(cacheManager.getCache(UserRepository.USERS_CACHE).get(USER_ID));
+        repository.enableExisted(USER_ID, false);
+        assertFalse(repository.getExistedView(USER_ID).isEnabled());
+        assertFalse(repository.getExistedViewByEmail(USER_MAIL).isEnabled());
+    }
+
+    @Test
+    void update() {
+        repository.getExistedViewByEmail(USER_MAIL);
+        User updated = repository.getExisted(USER_ID);
+        updated.setName("UpdatedName");
+        repository.save(updated);
+        assertEquals("UpdatedName", repository.getExistedViewByEmail(USER_MAIL).getName());
+    }
+
+    @Test
+    void evictedAfterCommit() {
+        UserView cached = repository.getExistedView(USER_ID);
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.enableExisted(USER_ID, false);
+            // not committed yet: concurrent readers must not cache old state after eviction
+            assertSame(cached, cacheManager.getCache(UserRepository.USERS_CACHE).get(USER_ID, UserView.class));
+        });
+        assertNull(cacheManager.getCache(UserRepository.USERS_CACHE).get(USER_ID));
+        assertFalse(repository.getExistedView(USER_ID).isEnabled());
+    }
+}
@@ -0,0 +1,41 @@
+package ru.javaops.startup.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.javaops.startup.user.web.AdminUserController.REST_URL;
+
+//  gzip is applied by Tomcat connector, MockMvc doesn't see it: request real server.
+//  JDK HttpClient doesn't decompress, so Content-Encoding is kept in response
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "server.compression.min-response-size=1B")
+@ActiveProfiles("test")
+class CompressionTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void getAllGzipped() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + REST_URL))
+                .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8)))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build();
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        assertTrue(response.headers().firstValue(HttpHeaders.ETAG).orElseThrow().startsWith("W/"));
+    }
+}
@@ -0,0 +1,52 @@
+package ru.javaops.startup.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.matchesRegex;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class StaticResourceTest extends AbstractControllerTest {
+
+    @Autowired
+    private ResourceUrlProvider resourceUrlProvider;
+
+    @Test
+    void versionedUrl() throws Exception {
+        String url = resourceUrlProvider.getForLookupPath("/static/css/main.css");
+        assertNotNull(url);
+        perform(MockMvcRequestBuilders.get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")));
+    }
+
+    @Test
+    void cssLinksVersioned() throws Exception {
+        String url = resourceUrlProvider.getForLookupPath("/static/fontawesome/css/all.min.css");
+        assertNotNull(url);
+        perform(MockMvcRequestBuilders.get(url))
+                .andExpect(status().isOk())
+                .andExpect(content().string(matchesRegex("(?s).*url\\(/static/fontawesome/webfonts/fa-solid-900-[0-9a-f]{32}\\.woff2\\).*")));
+    }
+
+    @Test
+    void unversionedUrl() throws Exception {
+        perform(MockMvcRequestBuilders.get("/static/bootstrap/css/bootstrap.min.css.map"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=3600, public"));
+    }
+
+    @Test
+    void pageLinksVersioned() throws Exception {
+        perform(MockMvcRequestBuilders.get("/"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(matchesRegex("(?s).*/static/css/main-[0-9a-f]{32}\\.css.*")));
+    }
+}
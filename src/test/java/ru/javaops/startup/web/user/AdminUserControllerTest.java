@@ -1,25 +1,47 @@
 package ru.javaops.startup.web.user;
 
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithUserDetails;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.javaops.startup.common.error.ErrorType;
+import ru.javaops.startup.common.util.JsonUtil;
 import ru.javaops.startup.user.model.Role;
 import ru.javaops.startup.user.model.User;
 import ru.javaops.startup.user.repository.UserRepository;
 import ru.javaops.startup.web.AbstractControllerTest;
 
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.javaops.startup.app.error.RestExceptionHandler.EXCEPTION_DUPLICATE_EMAIL;
 import static ru.javaops.startup.common.util.JsonUtil.writeValue;
 import static ru.javaops.startup.UserTestData.*;
 import static ru.javaops.startup.user.web.AdminUserController.REST_URL;
-import static ru.javaops.startup.user.web.UniqueMailValidator.EXCEPTION_DUPLICATE_EMAIL;
 
 class AdminUserControllerTest extends AbstractControllerTest {
 
@@ -28,6 +50,15 @@ class AdminUserControllerTest extends AbstractControllerTest {
     @Autowired
     private UserRepository repository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
     @Test
     @WithUserDetails(value = "admin")
     void get() throws Exception {
@@ -39,6 +70,57 @@ class AdminUserControllerTest extends AbstractControllerTest {
                 .andExpect(USER_MATCHER.contentJson(admin));
     }
 
+    @Test
+    @WithUserDetails(value = "admin")
+    void getNotModified() throws Exception {
+        perform(MockMvcRequestBuilders.get(REST_URL_SLASH + ADMIN_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"0\""));
+        perform(MockMvcRequestBuilders.get(REST_URL_SLASH + ADMIN_ID)
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void getAllNotModified() throws Exception {
+        String etag = perform(MockMvcRequestBuilders.get(REST_URL))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        perform(MockMvcRequestBuilders.get(REST_URL)
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        perform(MockMvcRequestBuilders.patch(REST_URL_SLASH + USER_ID)
+                .param("enabled", "false"))
+                .andExpect(status().isNoContent());
+        perform(MockMvcRequestBuilders.get(REST_URL)
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void getSmile() throws Exception {
+        byte[] body = perform(MockMvcRequestBuilders.get(REST_URL_SLASH + ADMIN_ID)
+                .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+        // https://github.com/FasterXML/smile-format-specification: header ":)\n"
+        assertEquals(":)\n", new String(body, 0, 3));
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void getCbor() throws Exception {
+        perform(MockMvcRequestBuilders.get(REST_URL)
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR));
+    }
+
     @Test
     @WithUserDetails(value = "admin")
     void getNotFound() throws Exception {
@@ -47,6 +129,16 @@ class AdminUserControllerTest extends AbstractControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithUserDetails(value = "admin")
+    void getNotFoundCounted() throws Exception {
+        Counter notFound = meterRegistry.counter("app.errors", "type", ErrorType.NOT_FOUND.name());
+        double before = notFound.count();
+        perform(MockMvcRequestBuilders.get(REST_URL_SLASH + NOT_FOUND))
+                .andExpect(status().isNotFound());
+        assertEquals(before + 1, notFound.count());
+    }
+
     @Test
     @WithUserDetails(value = "admin")
     void getByEmail() throws Exception {
@@ -56,6 +148,14 @@ class AdminUserControllerTest extends AbstractControllerTest {
                 .andExpect(USER_MATCHER.contentJson(admin));
     }
 
+    @Test
+    @WithUserDetails(value = "admin")
+    void getByEmailIgnoreCase() throws Exception {
+        perform(MockMvcRequestBuilders.get(REST_URL_SLASH + "by-email?email=" + admin.getEmail().toUpperCase()))
+                .andExpect(status().isOk())
+                .andExpect(USER_MATCHER.contentJson(admin));
+    }
+
     @Test
     @WithUserDetails(value = "admin")
     void delete() throws Exception {
@@ -65,6 +165,22 @@ class AdminUserControllerTest extends AbstractControllerTest {
         assertFalse(repository.findById(USER_ID).isPresent());
     }
 
+    @Test
+    @WithUserDetails(value = "admin")
+    void deleteIfMatch() throws Exception {
+        perform(MockMvcRequestBuilders.delete(REST_URL_SLASH + USER_ID)
+                .header(HttpHeaders.IF_MATCH, "\"1\""))
+                .andExpect(status().isPreconditionFailed());
+        // weak ETag never satisfies If-Match (strong comparison)
+        perform(MockMvcRequestBuilders.delete(REST_URL_SLASH + USER_ID)
+                .header(HttpHeaders.IF_MATCH, "W/\"0\""))
+                .andExpect(status().isPreconditionFailed());
+        perform(MockMvcRequestBuilders.delete(REST_URL_SLASH + USER_ID)
+                .header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isNoContent());
+        assertFalse(repository.findById(USER_ID).isPresent());
+    }
+
     @Test
     @WithUserDetails(value = "admin")
     void deleteNotFound() throws Exception {
@@ -90,6 +206,28 @@ class AdminUserControllerTest extends AbstractControllerTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    void getBasicAuth() throws Exception {
+        perform(MockMvcRequestBuilders.get(REST_URL_SLASH + ADMIN_ID)
+                .with(httpBasic(ADMIN_MAIL, "admin")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getBasicAuthForbidden() throws Exception {
+        perform(MockMvcRequestBuilders.get(REST_URL_SLASH + ADMIN_ID)
+                .with(httpBasic(USER_MAIL, "password")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void getBasicAuthDisabled() throws Exception {
+        repository.enableExisted(ADMIN_ID, false);
+        perform(MockMvcRequestBuilders.get(REST_URL_SLASH + ADMIN_ID)
+                .with(httpBasic(ADMIN_MAIL, "admin")))
+                .andExpect(status().isUnauthorized());
+    }
+
     @Test
     @WithUserDetails(value = "admin")
     void update() throws Exception {
@@ -104,6 +242,38 @@ class AdminUserControllerTest extends AbstractControllerTest {
         USER_MATCHER.assertMatch(repository.getExisted(USER_ID), getUpdated());
     }
 
+    //  no lookups of version and password before write: the only select is load of updated user
+    @Test
+    @WithUserDetails(value = "admin")
+    void updateSingleSelect() throws Exception {
+        Statistics statistics = statistics();
+        perform(MockMvcRequestBuilders.put(REST_URL_SLASH + USER_ID)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(writeValue(getUpdated())))
+                .andExpect(status().isNoContent());
+        assertEquals(1, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getQueryExecutionCount());
+        assertEquals(1, statistics.getEntityUpdateCount());
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void updateIfMatch() throws Exception {
+        perform(MockMvcRequestBuilders.put(REST_URL_SLASH + USER_ID)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .content(writeValue(getUpdated())))
+                .andExpect(status().isNoContent());
+
+        // lost update: the same version was already modified
+        perform(MockMvcRequestBuilders.put(REST_URL_SLASH + USER_ID)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .content(writeValue(user)))
+                .andExpect(status().isPreconditionFailed());
+        USER_MATCHER.assertMatch(repository.getExisted(USER_ID), getUpdated());
+    }
+
     @Test
     @WithUserDetails(value = "admin")
     void createWithLocation() throws Exception {
@@ -120,13 +290,203 @@ class AdminUserControllerTest extends AbstractControllerTest {
         USER_MATCHER.assertMatch(repository.getExisted(newId), newUser);
     }
 
+    @Test
+    @WithUserDetails(value = "admin")
+    void importUsers() throws Exception {
+        User newUser = getNew();
+        User duplicate = getNew();
+        User existed = new User(null, "Existed", USER_MAIL.toUpperCase(), "ExistedLastName", Role.USER);
+        User invalid = getNew();
+        invalid.setName("<script>alert(123)</script>");
+        invalid.setEmail("invalid@gmail.com");
+        String ndjson = Stream.of(newUser, duplicate, existed, invalid).map(JsonUtil::writeValue).collect(Collectors.joining("\n"));
+
+        perform(MockMvcRequestBuilders.post(REST_URL_SLASH + "import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(4))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.rows[1].errors[0]").value(containsString(EXCEPTION_DUPLICATE_EMAIL)))
+                .andExpect(jsonPath("$.rows[2].errors[0]").value(containsString(EXCEPTION_DUPLICATE_EMAIL)))
+                .andExpect(jsonPath("$.rows[3].errors[0]").value(containsString("name")));
+
+        User created = repository.getExistedByEmail(newUser.getEmail());
+        newUser.setId(created.id());
+        USER_MATCHER.assertMatch(created, newUser);
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void importUsersWithPasswords() throws Exception {
+        perform(MockMvcRequestBuilders.post(REST_URL_SLASH + "import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(importRow("new1@gmail.com", "newPassword1") + '\n' + importRow("new2@gmail.com", "newPassword2")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2));
+        assertTrue(passwordEncoder.matches("newPassword1", repository.getExistedByEmail("new1@gmail.com").getPassword()));
+        assertTrue(passwordEncoder.matches("newPassword2", repository.getExistedByEmail("new2@gmail.com").getPassword()));
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void importUsersEncodedPasswords() throws Exception {
+        String encoded = passwordEncoder.encode("newPassword");
+        perform(MockMvcRequestBuilders.post(REST_URL_SLASH + "import")
+                .param("encodedPasswords", "true")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(importRow("new1@gmail.com", encoded) + '\n' + importRow("new2@gmail.com", "newPassword")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rows[1].errors[0]").value(containsString("bcrypt")));
+        assertEquals(encoded, repository.getExistedByEmail("new1@gmail.com").getPassword());
+    }
+
+    //  password is write-only in json of User
+    private static String importRow(String email, String password) {
+        return "{\"name\":\"New\",\"email\":\"" + email + "\",\"password\":\"" + password + "\",\"roles\":[\"USER\"]}";
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void importUsersJsonArray() throws Exception {
+        perform(MockMvcRequestBuilders.post(REST_URL_SLASH + "import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(writeValue(List.of(getNew()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rows[0].id").isNumber());
+    }
+
     @Test
     @WithUserDetails(value = "admin")
     void getAll() throws Exception {
+        Statistics statistics = statistics();
         perform(MockMvcRequestBuilders.get(REST_URL))
                 .andExpect(status().isOk())
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
                 .andExpect(USER_MATCHER.contentJson(admin, guest, user));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void getPage() throws Exception {
+        Statistics statistics = statistics();
+        ResultActions action = perform(MockMvcRequestBuilders.get(REST_URL_SLASH + "page")
+                .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].email").value(ADMIN_MAIL))
+                .andExpect(jsonPath("$.content[0].roles.length()").value(2))
+                .andExpect(jsonPath("$.content[1].email").value(GUEST_MAIL))
+                .andExpect(jsonPath("$.content[1].roles.length()").value(0))
+                .andExpect(jsonPath("$.next").isString());
+        // page and its roles
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        String next = JsonPath.read(action.andReturn().getResponse().getContentAsString(), "$.next");
+        perform(MockMvcRequestBuilders.get(REST_URL_SLASH + "page")
+                .param("cursor", next)
+                .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].email").value(USER_MAIL))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void getPageInvalidCursor() throws Exception {
+        perform(MockMvcRequestBuilders.get(REST_URL_SLASH + "page")
+                .param("cursor", "invalid"))
+                .andDo(print())
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void searchByPrefix() throws Exception {
+        perform(MockMvcRequestBuilders.get(REST_URL_SLASH + "search")
+                .param("query", "GU"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].email").value(contains(GUEST_MAIL)))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    //  the same shape as prefix query of UserSearchService: each branch of union is a range scan of its index
+    @Test
+    void searchByPrefixPlan() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            String plan = ((String) em.createNativeQuery("""
+                    EXPLAIN SELECT id FROM users WHERE id IN (
+                        SELECT id FROM users WHERE name_lower LIKE 'gu%'
+                        UNION SELECT id FROM users WHERE last_name_lower LIKE 'gu%'
+                        UNION SELECT id FROM users WHERE email_lower LIKE 'gu%')
+                    ORDER BY name, email, id""").getSingleResult()).toUpperCase();
+            assertThat(plan, containsString("USERS_NAME_LOWER_IDX"));
+            assertThat(plan, containsString("USERS_LAST_NAME_LOWER_IDX"));
+            assertThat(plan, containsString("USERS_EMAIL_LOWER_IDX"));
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void searchBySubstring() throws Exception {
+        perform(MockMvcRequestBuilders.get(REST_URL_SLASH + "search")
+                .param("query", "gmail")
+                .param("contains", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].email").value(contains(ADMIN_MAIL, GUEST_MAIL)));
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void searchByFilters() throws Exception {
+        perform(MockMvcRequestBuilders.get(REST_URL_SLASH + "search")
+                .param("roles", "USER")
+                .param("enabled", "true")
+                .param("registeredFrom", "2000-01-01T00:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].email").value(contains(ADMIN_MAIL, USER_MAIL)))
+                .andExpect(jsonPath("$.content[0].roles.length()").value(2));
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void searchPaged() throws Exception {
+        ResultActions action = perform(MockMvcRequestBuilders.get(REST_URL_SLASH + "search")
+                .param("roles", "USER")
+                .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].email").value(contains(ADMIN_MAIL)))
+                .andExpect(jsonPath("$.next").isString());
+
+        String next = JsonPath.read(action.andReturn().getResponse().getContentAsString(), "$.next");
+        perform(MockMvcRequestBuilders.get(REST_URL_SLASH + "search")
+                .param("roles", "USER")
+                .param("size", "1")
+                .param("cursor", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].email").value(contains(USER_MAIL)))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void streamAll() throws Exception {
+        Statistics statistics = statistics();
+        String content = perform(MockMvcRequestBuilders.get(REST_URL_SLASH + "stream"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        USER_MATCHER.assertMatch(content.lines().map(line -> JsonUtil.readValue(line, User.class)).toList(), admin, guest, user);
+        assertEquals(2, statistics.getPrepareStatementCount());
     }
 
     @Test
@@ -141,6 +501,45 @@ class AdminUserControllerTest extends AbstractControllerTest {
         assertFalse(repository.getExisted(USER_ID).isEnabled());
     }
 
+    @Test
+    @WithUserDetails(value = "admin")
+    void enableIfMatchModified() throws Exception {
+        perform(MockMvcRequestBuilders.patch(REST_URL_SLASH + USER_ID)
+                .param("enabled", "false")
+                .header(HttpHeaders.IF_MATCH, "\"1\""))
+                .andExpect(status().isPreconditionFailed());
+        perform(MockMvcRequestBuilders.patch(REST_URL_SLASH + USER_ID)
+                .param("enabled", "false")
+                .header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isNoContent());
+        assertFalse(repository.getExisted(USER_ID).isEnabled());
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void enableAll() throws Exception {
+        perform(MockMvcRequestBuilders.patch(REST_URL)
+                .param("enabled", "false")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(writeValue(List.of(USER_ID, ADMIN_ID))))
+                .andDo(print())
+                .andExpect(status().isNoContent());
+
+        assertFalse(repository.getExisted(USER_ID).isEnabled());
+        assertFalse(repository.getExisted(ADMIN_ID).isEnabled());
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void enableAllNotFound() throws Exception {
+        perform(MockMvcRequestBuilders.patch(REST_URL)
+                .param("enabled", "false")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(writeValue(List.of(USER_ID, NOT_FOUND))))
+                .andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @WithUserDetails(value = "admin")
     void createInvalid() throws Exception {
@@ -200,4 +599,11 @@ class AdminUserControllerTest extends AbstractControllerTest {
                 .andExpect(status().isUnprocessableEntity())
                 .andExpect(content().string(containsString(EXCEPTION_DUPLICATE_EMAIL)));
     }
-}
\ No newline at end of file
+
+    // SQL statements count of the next requests (N+1 detection)
+    private Statistics statistics() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,95 @@
+package ru.javaops.startup.web.user;
+
+import com.jayway.jsonpath.JsonPath;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.javaops.startup.app.config.AccessTokenFilter;
+import ru.javaops.startup.user.repository.UserRepository;
+import ru.javaops.startup.user.web.AdminUserController;
+import ru.javaops.startup.web.AbstractControllerTest;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static ru.javaops.startup.UserTestData.*;
+import static ru.javaops.startup.user.web.AuthController.REST_URL;
+
+class AuthControllerTest extends AbstractControllerTest {
+    private static final String ADMIN_USERS_URL = AdminUserController.REST_URL + '/';
+
+    @Autowired
+    private UserRepository repository;
+
+    private String issueToken(String email, String password) throws Exception {
+        MvcResult result = perform(MockMvcRequestBuilders.post(REST_URL + "/token")
+                .with(httpBasic(email, password)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tokenType").value("Bearer"))
+                .andReturn();
+        // stateless: no session is created
+        assertNull(result.getRequest().getSession(false));
+        return JsonPath.read(result.getResponse().getContentAsString(), "$.accessToken");
+    }
+
+    @Test
+    void token() throws Exception {
+        String token = issueToken(ADMIN_MAIL, "admin");
+        perform(MockMvcRequestBuilders.get(ADMIN_USERS_URL + ADMIN_ID)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void tokenUnauthorized() throws Exception {
+        perform(MockMvcRequestBuilders.post(REST_URL + "/token"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void tokenByToken() throws Exception {
+        String token = issueToken(ADMIN_MAIL, "admin");
+        perform(MockMvcRequestBuilders.post(REST_URL + "/token")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void tokenForbidden() throws Exception {
+        String token = issueToken(USER_MAIL, "password");
+        perform(MockMvcRequestBuilders.get(ADMIN_USERS_URL + ADMIN_ID)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void invalidToken() throws Exception {
+        String token = issueToken(ADMIN_MAIL, "admin");
+        perform(MockMvcRequestBuilders.get(ADMIN_USERS_URL + ADMIN_ID)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.substring(0, token.length() - 2)))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void revokedByDisable() throws Exception {
+        String token = issueToken(ADMIN_MAIL, "admin");
+        repository.enableExisted(ADMIN_ID, false);
+        perform(MockMvcRequestBuilders.get(ADMIN_USERS_URL + ADMIN_ID)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void formLogin() throws Exception {
+        Cookie cookie = perform(MockMvcRequestBuilders.post("/view/login")
+                .param("username", ADMIN_MAIL).param("password", "admin"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(cookie().httpOnly(AccessTokenFilter.TOKEN_COOKIE, true))
+                .andReturn().getResponse().getCookie(AccessTokenFilter.TOKEN_COOKIE);
+        perform(MockMvcRequestBuilders.get(ADMIN_USERS_URL + ADMIN_ID).cookie(cookie))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,130 @@
+package ru.javaops.startup.web.user;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.javaops.startup.user.model.UserEvent;
+import ru.javaops.startup.user.repository.UserEventRepository;
+import ru.javaops.startup.user.service.UserEventBroker;
+import ru.javaops.startup.user.service.UserEventPublisher;
+import ru.javaops.startup.web.AbstractControllerTest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.javaops.startup.UserTestData.*;
+import static ru.javaops.startup.common.util.JsonUtil.writeValue;
+import static ru.javaops.startup.user.web.AdminUserController.REST_URL;
+
+@TestPropertySource(properties = "app.events.publisher=true")
+class UserEventTest extends AbstractControllerTest {
+    private static final String REST_URL_SLASH = REST_URL + '/';
+
+    @Autowired
+    private UserEventRepository eventRepository;
+
+    @Autowired
+    private UserEventPublisher publisher;
+
+    @Autowired
+    private UserEventBroker broker;
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void outbox() throws Exception {
+        perform(MockMvcRequestBuilders.put(REST_URL_SLASH + USER_ID)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(writeValue(getUpdated())))
+                .andExpect(status().isNoContent());
+        perform(MockMvcRequestBuilders.patch(REST_URL_SLASH + USER_ID).param("enabled", "true"))
+                .andExpect(status().isNoContent());
+        perform(MockMvcRequestBuilders.delete(REST_URL_SLASH + GUEST_ID))
+                .andExpect(status().isNoContent());
+
+        List<UserEvent> events = eventRepository.findAll();
+        assertEquals(List.of(UserEvent.Type.UPDATED, UserEvent.Type.ENABLED, UserEvent.Type.DELETED),
+                events.stream().map(UserEvent::getType).toList());
+        assertTrue(events.getFirst().getPayload().contains("UpdatedName"));
+        assertFalse(events.getFirst().getPayload().contains("password"));
+        assertNull(events.getLast().getSeq());
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void publish() throws Exception {
+        perform(MockMvcRequestBuilders.patch(REST_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(writeValue(Set.of(USER_ID, ADMIN_ID)))
+                .param("enabled", "false"))
+                .andExpect(status().isNoContent());
+
+        List<UserEvent> published = new ArrayList<>();
+        Runnable unsubscribe = broker.subscribe(published::addAll);
+        try {
+            assertEquals(2, publisher.publish());
+        } finally {
+            unsubscribe.run();
+        }
+        assertEquals(2, published.size());
+        assertTrue(published.getFirst().getSeq() < published.getLast().getSeq());
+        assertEquals(0, publisher.publish());
+        assertEquals(published.getLast().getSeq(), eventRepository.findMaxSeq());
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void publishAfterPurge() throws Exception {
+        perform(MockMvcRequestBuilders.patch(REST_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(writeValue(Set.of(USER_ID, ADMIN_ID)))
+                .param("enabled", "false"))
+                .andExpect(status().isNoContent());
+        assertEquals(2, publisher.publish());
+        long maxSeq = eventRepository.findMaxSeq();
+
+        // all published events are expired: the highest one is kept
+        assertEquals(1, publisher.purge(Instant.now().plusSeconds(1)));
+        assertEquals(maxSeq, eventRepository.findMaxSeq());
+
+        perform(MockMvcRequestBuilders.patch(REST_URL_SLASH + USER_ID).param("enabled", "true"))
+                .andExpect(status().isNoContent());
+        assertEquals(1, publisher.publish());
+        assertEquals(maxSeq + 1, eventRepository.findMaxSeq());
+    }
+
+    //  stream tails committed outbox: event and its seq are committed, outbox is cleaned after
+    @Test
+    @WithUserDetails(value = "admin")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void stream() throws Exception {
+        MvcResult result = perform(MockMvcRequestBuilders.get(REST_URL_SLASH + "events").param("since", "0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        try {
+            eventRepository.save(UserEvent.of(UserEvent.Type.DELETED, GUEST_ID));
+            publisher.publish();
+            String content = "";
+            for (int i = 0; i < 50 && !content.contains("DELETED"); i++) {
+                Thread.sleep(100);
+                content = result.getResponse().getContentAsString();
+            }
+            assertThat(content, containsString("event:user"));
+            assertThat(content, containsString("\"type\":\"DELETED\""));
+        } finally {
+            eventRepository.deleteAll();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.javaops.startup.web.user;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.javaops.startup.user.to.ChangeCursor;
+import ru.javaops.startup.web.AbstractControllerTest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.javaops.startup.UserTestData.*;
+import static ru.javaops.startup.user.web.AdminUserController.REST_URL;
+
+class UserSyncTest extends AbstractControllerTest {
+    private static final String REST_URL_CHANGES = REST_URL + "/changes";
+    private static final String REST_URL_SLASH = REST_URL + '/';
+
+    private String fullSync() throws Exception {
+        MvcResult result = perform(MockMvcRequestBuilders.get(REST_URL_CHANGES).param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed.length()").value(2))
+                .andExpect(jsonPath("$.complete").value(false))
+                .andReturn();
+        String cursor = JsonPath.read(result.getResponse().getContentAsString(), "$.cursor");
+        result = perform(MockMvcRequestBuilders.get(REST_URL_CHANGES).param("size", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed.length()").value(1))
+                .andExpect(jsonPath("$.deleted", empty()))
+                .andExpect(jsonPath("$.complete").value(true))
+                .andReturn();
+        return JsonPath.read(result.getResponse().getContentAsString(), "$.cursor");
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void noChanges() throws Exception {
+        perform(MockMvcRequestBuilders.get(REST_URL_CHANGES).param("cursor", fullSync()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed", empty()))
+                .andExpect(jsonPath("$.deleted", empty()))
+                .andExpect(jsonPath("$.complete").value(true));
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void changes() throws Exception {
+        String cursor = fullSync();
+        perform(MockMvcRequestBuilders.patch(REST_URL_SLASH + USER_ID).param("enabled", "false"))
+                .andExpect(status().isNoContent());
+        perform(MockMvcRequestBuilders.delete(REST_URL_SLASH + GUEST_ID))
+                .andExpect(status().isNoContent());
+
+        perform(MockMvcRequestBuilders.get(REST_URL_CHANGES).param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed[*].id", contains(USER_ID)))
+                .andExpect(jsonPath("$.changed[0].enabled").value(false))
+                .andExpect(jsonPath("$.deleted", contains(GUEST_ID)))
+                .andExpect(jsonPath("$.complete").value(true));
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void expiredCursor() throws Exception {
+        String cursor = new ChangeCursor(Instant.now().minus(365, ChronoUnit.DAYS), 0, false).encode();
+        perform(MockMvcRequestBuilders.get(REST_URL_CHANGES).param("cursor", cursor))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    @WithUserDetails(value = "admin")
+    void invalidCursor() throws Exception {
+        perform(MockMvcRequestBuilders.get(REST_URL_CHANGES).param("cursor", "!!"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+}